@@ -0,0 +1,61 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.dao.DatabaseManager;
+import com.example.nutrimap.dao.VisitDAO;
+import com.example.nutrimap.service.PopulationGenerator;
+
+import java.io.File;
+import java.sql.SQLException;
+
+/**
+ * Opens the benchmark database for a given number of visits, generating it with
+ * PopulationGenerator the first time. Databases are kept in -Dnutrimap.bench.dir (default
+ * target/bench-db) as nutrimap-&lt;visits&gt;.db and reused by later runs; delete them to
+ * regenerate. DatabaseManager reads its path once, so each size needs its own JVM, which JMH
+ * gives every @Param combination as long as forks are not turned off.
+ */
+final class BenchmarkDatabase {
+    private static final String DIR = System.getProperty("nutrimap.bench.dir", "target/bench-db");
+    private static final long SEED = 42;
+    // Starting guess for visits per child, corrected after the first round
+    private static final double VISITS_PER_CHILD = 3.0;
+
+    private BenchmarkDatabase() {
+    }
+
+    static DatabaseManager open(int visits) throws SQLException {
+        File file = new File(DIR, "nutrimap-" + visits + ".db").getAbsoluteFile();
+        String current = System.getProperty("nutrimap.db");
+        if (current != null && !current.equals(file.getPath())) {
+            throw new IllegalStateException("This JVM already uses " + current + "; run each size in its own fork");
+        }
+        file.getParentFile().mkdirs();
+        System.setProperty("nutrimap.db", file.getPath());
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        VisitDAO visitDAO = new VisitDAO();
+        int existing = visitDAO.getCount();
+        if (existing < visits) {
+            fill(visitDAO, existing, visits);
+        }
+        System.out.printf("%n%s: %,d visits, %.1f MB%n", file, visitDAO.getCount(), file.length() / 1e6);
+        return db;
+    }
+
+    // Generated in rounds, each with its own seed, until there are at least the requested visits
+    private static void fill(VisitDAO visitDAO, int existing, int visits) throws SQLException {
+        double visitsPerChild = VISITS_PER_CHILD;
+        long seed = SEED + existing;
+        int have = existing;
+        while (have < visits) {
+            int children = (int) Math.max(100, Math.ceil((visits - have) / visitsPerChild));
+            PopulationGenerator generator = new PopulationGenerator(seed++);
+            PopulationGenerator.GenerationResult result = generator.generate(children, progress ->
+                    System.out.printf("  generating: %,d visits%n", progress.getVisits()));
+            if (result.getChildren() > 0 && result.getVisits() > 0) {
+                visitsPerChild = (double) result.getVisits() / result.getChildren();
+            }
+            have = visitDAO.getCount();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.dao.ChildDAO;
+import com.example.nutrimap.dao.DatabaseManager;
+import com.example.nutrimap.dao.VisitDAO;
+import com.example.nutrimap.model.ChildModel;
+import com.example.nutrimap.model.ChildSummary;
+import com.example.nutrimap.model.DashboardData;
+import com.example.nutrimap.model.VisitModel;
+import com.example.nutrimap.service.DashboardService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the DAO reads behind the children, visits and home screens on databases of 10k,
+ * 100k and 1M visits (about 3 visits per child). Sample-time mode reports p50/p90/p99 per
+ * query and the gc profiler the bytes allocated per call, e.g.
+ * java -jar target/benchmarks.jar DaoBenchmark -p visits=100000
+ *
+ * Ids and search words are drawn from the database itself, so lookups hit existing rows and
+ * searches match a realistic share of them. Query timing (QueryMetrics) stays on, as in the app.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class DaoBenchmark {
+    private static final int SAMPLES = 1024;
+    private static final int MASK = SAMPLES - 1;
+    private static final String[] NOTE_WORDS = { "fever", "oedema", "vitamin", "referred OTP", "\"complementary feeding\"" };
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({ "10000", "100000", "1000000" })
+        public int visits;
+
+        DatabaseManager db;
+        ChildDAO childDAO;
+        VisitDAO visitDAO;
+        DashboardService dashboardService;
+        final int[] childIds = new int[SAMPLES];
+        final String[] childKeywords = new String[SAMPLES];
+        final String[] visitKeywords = new String[SAMPLES];
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            db = BenchmarkDatabase.open(visits);
+            childDAO = new ChildDAO();
+            visitDAO = new VisitDAO();
+            dashboardService = new DashboardService();
+
+            // Reservoir sample of children: whole first names, name prefixes and full names
+            SplittableRandom random = new SplittableRandom(7);
+            List<ChildSummary> sample = new ArrayList<>(SAMPLES);
+            int[] seen = new int[1];
+            childDAO.forEachSummary(child -> {
+                seen[0]++;
+                if (sample.size() < SAMPLES) {
+                    sample.add(child);
+                } else {
+                    int slot = random.nextInt(seen[0]);
+                    if (slot < SAMPLES) {
+                        sample.set(slot, child);
+                    }
+                }
+            });
+            if (sample.isEmpty()) {
+                throw new IllegalStateException("The benchmark database has no children");
+            }
+            for (int i = 0; i < SAMPLES; i++) {
+                ChildSummary child = sample.get(i % sample.size());
+                String name = child.getFullName().trim();
+                String first = name.split("\\s+")[0];
+                childIds[i] = child.getId();
+                switch (i % 3) {
+                    case 0: childKeywords[i] = first; break;
+                    case 1: childKeywords[i] = first.substring(0, Math.min(3, first.length())); break;
+                    default: childKeywords[i] = name; break;
+                }
+                visitKeywords[i] = i % 2 == 0 ? NOTE_WORDS[i % NOTE_WORDS.length] : first;
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void close() {
+            db.closeConnection();
+        }
+    }
+
+    private int i;
+
+    private int next() {
+        i = (i + 1) & MASK;
+        return i;
+    }
+
+    @Benchmark
+    public List<ChildModel> childGetAll(Database d) {
+        return d.childDAO.getAll();
+    }
+
+    @Benchmark
+    public List<ChildModel> childSearch(Database d) {
+        return d.childDAO.search(d.childKeywords[next()]);
+    }
+
+    @Benchmark
+    public ChildModel childGetById(Database d) {
+        return d.childDAO.getById(d.childIds[next()]);
+    }
+
+    @Benchmark
+    public List<VisitModel> visitGetByChildId(Database d) {
+        return d.visitDAO.getByChildId(d.childIds[next()]);
+    }
+
+    @Benchmark
+    public VisitModel visitGetLatestByChildId(Database d) {
+        return d.visitDAO.getLatestVisitByChildId(d.childIds[next()]);
+    }
+
+    @Benchmark
+    public List<VisitModel> visitSearch(Database d) {
+        return d.visitDAO.search(d.visitKeywords[next()]);
+    }
+
+    @Benchmark
+    public DashboardData dashboardLoad(Database d) {
+        return d.dashboardService.load();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.service.GitHubJsonDataService;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time and allocation of loading each gazetteer file into models through GitHubJsonDataService:
+ * fetch, parse and map, with the cache cleared before every call. "bundled" reads the copy on
+ * the classpath; "http" fetches it from a local stand-in server, so the HTTP client and body
+ * handling are included without depending on the network. Read gc.alloc.rate.norm for bytes
+ * allocated per load, e.g. java -jar target/benchmarks.jar GazetteerLoad -p dataset=unions
+ *
+ * The service logs a line per load; System.out is silenced while measuring.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GazetteerLoadBenchmark {
+
+    @Param({ "divisions", "districts", "upazilas", "unions", "branches" })
+    public String dataset;
+
+    @Param({ "bundled", "http" })
+    public String source;
+
+    private HttpServer server;
+    private GitHubJsonDataService service;
+    private PrintStream stdout;
+
+    // The service reads its base URL once per JVM; JMH forks a fresh one for every source
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        if ("http".equals(source)) {
+            // Without TCP_NODELAY small responses stall on delayed ACKs (~40 ms each)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+            server.createContext("/data/", exchange -> {
+                String name = exchange.getRequestURI().getPath().substring("/data/".length());
+                try (InputStream in = GazetteerLoadBenchmark.class.getResourceAsStream("/data/" + name)) {
+                    byte[] body = in != null ? in.readAllBytes() : new byte[0];
+                    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+                    exchange.sendResponseHeaders(in != null ? 200 : 404, body.length > 0 ? body.length : -1);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                }
+            });
+            server.start();
+            System.setProperty("nutrimap.gazetteer.url",
+                    "http://127.0.0.1:" + server.getAddress().getPort() + "/data/");
+        }
+        service = GitHubJsonDataService.getInstance();
+        if ("bundled".equals(source)) {
+            service.useBundledData();
+        }
+        if (load().isEmpty()) {
+            throw new IllegalStateException("No " + dataset + " loaded from " + source);
+        }
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(stdout);
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Benchmark
+    public List<?> load() {
+        service.clearCache();
+        switch (dataset) {
+            case "divisions": return service.getDivisions();
+            case "districts": return service.getDistricts();
+            case "upazilas": return service.getUpazilas();
+            case "unions": return service.getUnions();
+            case "branches": return service.getBranches();
+            default: throw new IllegalArgumentException("Unknown dataset " + dataset);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.util.NutritionRiskCalculator;
+import com.example.nutrimap.util.WhoGrowthStandards;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.SplittableRandom;
+
+/**
+ * A fixed, seeded sample of visit inputs spread over the WHO ranges: ages 0-59 months, heights
+ * near the WHO median for age, weights from the weight-for-height LMS tables for WHZ drawn
+ * around -0.5 (about 10% below -2), MUAC 9-18 cm and a previous visit for two thirds of them.
+ * Benchmarks cycle through the sample so branch prediction cannot learn a single input.
+ */
+final class GrowthInputs {
+    static final int SIZE = 1024;
+    private static final int MASK = SIZE - 1;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // WHO median length/height in cm at the ages in AGE_KNOTS, boys and girls averaged
+    private static final double[] AGE_KNOTS = { 0, 3, 6, 9, 12, 18, 24, 36, 48, 60 };
+    private static final double[] MEDIAN_HEIGHT = { 49.5, 60.6, 66.7, 71.1, 74.9, 81.5, 86.4, 95.6, 103.0, 109.7 };
+
+    final String[] sex = new String[SIZE];
+    final int[] sexCode = new int[SIZE];
+    final String[] gender = new String[SIZE];
+    final int[] ageMonths = new int[SIZE];
+    final String[] birthDate = new String[SIZE];
+    final String[] visitDate = new String[SIZE];
+    final LocalDate[] birthLocalDate = new LocalDate[SIZE];
+    final LocalDate[] visitLocalDate = new LocalDate[SIZE];
+    final int[] birthEpochDay = new int[SIZE];
+    final int[] visitEpochDay = new int[SIZE];
+    final double[] heightCm = new double[SIZE];
+    final double[] wholeHeightCm = new double[SIZE];
+    final double[] weightKg = new double[SIZE];
+    final int[] muacMm = new int[SIZE];
+    final double[] muacCm = new double[SIZE];
+    final Double[] muacPrevMm = new Double[SIZE];
+    final Double[] muacPrevCm = new Double[SIZE];
+    final Double[] weightPrevKg = new Double[SIZE];
+    // The same previous values unboxed, NaN where there is no previous visit
+    final double[] muacPrevCmOrNaN = new double[SIZE];
+    final double[] weightPrevKgOrNaN = new double[SIZE];
+    final String[] nutritionLevel = new String[SIZE];
+
+    GrowthInputs(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate today = LocalDate.of(2025, 6, 30);
+        for (int i = 0; i < SIZE; i++) {
+            boolean male = random.nextBoolean();
+            sex[i] = male ? "M" : "F";
+            sexCode[i] = male ? WhoGrowthStandards.MALE : WhoGrowthStandards.FEMALE;
+            gender[i] = male ? "Male" : "Female";
+
+            LocalDate birth = today.minusDays(random.nextInt(60 * 30));
+            LocalDate visit = birth.plusDays(random.nextInt((int) (today.toEpochDay() - birth.toEpochDay()) + 1));
+            birthLocalDate[i] = birth;
+            visitLocalDate[i] = visit;
+            birthEpochDay[i] = (int) birth.toEpochDay();
+            visitEpochDay[i] = (int) visit.toEpochDay();
+            birthDate[i] = birth.format(DATE_FORMATTER);
+            visitDate[i] = visit.format(DATE_FORMATTER);
+            ageMonths[i] = NutritionRiskCalculator.calculateAgeInMonths(birth, visit);
+
+            double age = (visit.toEpochDay() - birth.toEpochDay()) / 30.4375;
+            double height = medianHeight(age) * (1 + 0.037 * random.nextGaussian());
+            heightCm[i] = Math.round(Math.max(45.0, Math.min(120.0, height)) * 10) / 10.0;
+            wholeHeightCm[i] = Math.round(heightCm[i]);
+
+            double whz = -0.5 + 1.2 * random.nextGaussian();
+            weightKg[i] = Math.round(weightForZ(sex[i], heightCm[i], whz) * 10) / 10.0;
+            muacMm[i] = (int) Math.max(90, Math.min(180, Math.round(140 + 9 * whz + 4 * random.nextGaussian())));
+            muacCm[i] = muacMm[i] / 10.0;
+            if (random.nextInt(3) > 0) {
+                muacPrevMm[i] = (double) (muacMm[i] + random.nextInt(11) - 4);
+                muacPrevCm[i] = muacPrevMm[i] / 10.0;
+                weightPrevKg[i] = Math.round((weightKg[i] + 0.4 * random.nextGaussian()) * 10) / 10.0;
+            }
+            muacPrevCmOrNaN[i] = muacPrevCm[i] != null ? muacPrevCm[i] : Double.NaN;
+            weightPrevKgOrNaN[i] = weightPrevKg[i] != null ? weightPrevKg[i] : Double.NaN;
+            nutritionLevel[i] = NutritionRiskCalculator.classifyNutritionLevelFromRawData(
+                    ageMonths[i], sex[i], heightCm[i], weightKg[i], muacCm[i]);
+        }
+    }
+
+    static int next(int index) {
+        return (index + 1) & MASK;
+    }
+
+    private static double medianHeight(double ageMonths) {
+        int i = 1;
+        while (i < AGE_KNOTS.length - 1 && ageMonths > AGE_KNOTS[i]) {
+            i++;
+        }
+        double t = (ageMonths - AGE_KNOTS[i - 1]) / (AGE_KNOTS[i] - AGE_KNOTS[i - 1]);
+        return MEDIAN_HEIGHT[i - 1] + Math.max(0, Math.min(1, t)) * (MEDIAN_HEIGHT[i] - MEDIAN_HEIGHT[i - 1]);
+    }
+
+    // Inverse of the LMS z-score: X = M (1 + L S z)^(1/L)
+    private static double weightForZ(String sex, double heightCm, double z) {
+        WhoGrowthStandards.LmsParams lms = WhoGrowthStandards.getWeightForHeightLms(sex, heightCm);
+        return lms.L == 0 ? lms.M * Math.exp(lms.S * z) : lms.M * Math.pow(1 + lms.L * lms.S * z, 1 / lms.L);
+    }
+}
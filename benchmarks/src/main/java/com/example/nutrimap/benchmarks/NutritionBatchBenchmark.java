@@ -0,0 +1,66 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.util.NutritionBatch;
+import com.example.nutrimap.util.NutritionRiskCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Children classified per second by NutritionBatch over the whole input sample, against the
+ * one-child-at-a-time NutritionRiskCalculator path it replaces for cohorts. Scores are ops/us,
+ * i.e. millions of children per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NutritionBatchBenchmark {
+    private final GrowthInputs in = new GrowthInputs(42);
+    private final byte[] sex = new byte[GrowthInputs.SIZE];
+    private final double[] z = new double[GrowthInputs.SIZE];
+    private final byte[] levels = new byte[GrowthInputs.SIZE];
+
+    public NutritionBatchBenchmark() {
+        for (int i = 0; i < GrowthInputs.SIZE; i++) {
+            sex[i] = (byte) in.sexCode[i];
+        }
+        // classifyOnly reads these z-scores
+        NutritionBatch.evaluate(sex, in.ageMonths, in.heightCm, in.weightKg, in.muacMm, z, levels);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GrowthInputs.SIZE)
+    public byte[] evaluate() {
+        NutritionBatch.evaluate(sex, in.ageMonths, in.heightCm, in.weightKg, in.muacMm, z, levels);
+        return levels;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GrowthInputs.SIZE)
+    public byte[] classifyOnly() {
+        NutritionBatch.classify(z, in.muacMm, levels, 0, GrowthInputs.SIZE);
+        return levels;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GrowthInputs.SIZE)
+    public void scalarBaseline(Blackhole bh) {
+        for (int i = 0; i < GrowthInputs.SIZE; i++) {
+            bh.consume(NutritionRiskCalculator.classifyNutritionLevelFromRawData(in.ageMonths[i], in.sex[i],
+                    in.heightCm[i], in.weightKg[i], in.muacCm[i]));
+        }
+    }
+}
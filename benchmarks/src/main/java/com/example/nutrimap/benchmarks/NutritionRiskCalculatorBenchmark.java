@@ -0,0 +1,78 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.util.NutritionRiskCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the risk evaluation done for every visit saved and every child re-evaluated.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NutritionRiskCalculatorBenchmark {
+    private final GrowthInputs in = new GrowthInputs(42);
+    private int i;
+
+    @Benchmark
+    public NutritionRiskCalculator.NutritionRiskResult evaluateFromVisitData() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.evaluateFromVisitData(in.birthDate[i], in.visitDate[i], in.gender[i],
+                in.heightCm[i], in.weightKg[i], in.muacMm[i], in.muacPrevMm[i], in.weightPrevKg[i]);
+    }
+
+    @Benchmark
+    public NutritionRiskCalculator.NutritionRiskResult evaluateFullAssessment() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.evaluateFullAssessment(in.ageMonths[i], in.sex[i], in.heightCm[i],
+                in.weightKg[i], in.muacCm[i], in.muacPrevCm[i], in.weightPrevKg[i]);
+    }
+
+    /**
+     * The same assessment as evaluateFullAssessment returning a packed RiskCode; should not
+     * allocate at all (check gc.alloc.rate.norm).
+     */
+    @Benchmark
+    public int evaluatePacked() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.evaluate(in.ageMonths[i], in.sexCode[i], in.heightCm[i], in.weightKg[i],
+                in.muacCm[i], in.muacPrevCmOrNaN[i], in.weightPrevKgOrNaN[i]);
+    }
+
+    @Benchmark
+    public String classifyRiskLevel() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.classifyRiskLevel(in.nutritionLevel[i], in.ageMonths[i], in.muacCm[i],
+                in.muacPrevCm[i], in.weightKg[i], in.weightPrevKg[i]);
+    }
+
+    @Benchmark
+    public int calculateAgeInMonthsFromStrings() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.calculateAgeInMonths(in.birthDate[i], in.visitDate[i]);
+    }
+
+    @Benchmark
+    public int calculateAgeInMonthsFromDates() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.calculateAgeInMonths(in.birthLocalDate[i], in.visitLocalDate[i]);
+    }
+
+    @Benchmark
+    public int ageInMonthsFromEpochDays() {
+        i = GrowthInputs.next(i);
+        return NutritionRiskCalculator.ageInMonths(in.birthEpochDay[i], in.visitEpochDay[i]);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.nutrimap.benchmarks;
+
+import com.example.nutrimap.util.WhoGrowthStandards;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the WHO weight-for-height lookup and z-score. The reference table has a row for
+ * every whole centimetre; fractional heights are interpolated between two rows. weightForHeightZ
+ * is the primitive entry point and should show no allocation in gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WhoGrowthStandardsBenchmark {
+    private final GrowthInputs in = new GrowthInputs(42);
+    private int i;
+
+    @Benchmark
+    public double computeWhzZScore() {
+        i = GrowthInputs.next(i);
+        return WhoGrowthStandards.computeWhzZScore(in.ageMonths[i], in.sex[i], in.heightCm[i], in.weightKg[i]);
+    }
+
+    @Benchmark
+    public double weightForHeightZ() {
+        i = GrowthInputs.next(i);
+        return WhoGrowthStandards.weightForHeightZ(in.sexCode[i], in.heightCm[i], in.weightKg[i]);
+    }
+
+    @Benchmark
+    public WhoGrowthStandards.LmsParams getWeightForHeightLmsWholeCm() {
+        i = GrowthInputs.next(i);
+        return WhoGrowthStandards.getWeightForHeightLms(in.sex[i], in.wholeHeightCm[i]);
+    }
+
+    @Benchmark
+    public WhoGrowthStandards.LmsParams getWeightForHeightLmsFractionalCm() {
+        i = GrowthInputs.next(i);
+        return WhoGrowthStandards.getWeightForHeightLms(in.sex[i], in.heightCm[i]);
+    }
+}
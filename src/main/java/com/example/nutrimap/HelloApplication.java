@@ -1,6 +1,7 @@
 package com.example.nutrimap;
 import com.example.nutrimap.dao.DatabaseManager;
 import com.example.nutrimap.service.GitHubJsonDataService;
+import com.example.nutrimap.service.MaintenanceService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -23,6 +24,9 @@ public class HelloApplication extends Application {
         // Initialize database (for users, children, visits)
         DatabaseManager.getInstance();
         
+        // Archive deleted visits and vacuum in the background
+        MaintenanceService.getInstance().start();
+        
         // Preload location data from GitHub in background
         GitHubJsonDataService.getInstance().preloadData();
         
@@ -35,6 +39,13 @@ public class HelloApplication extends Application {
         stage.show();
     }
     
+    @Override
+    public void stop() {
+        MaintenanceService.getInstance().stop();
+        // Flush the writer queue and close pooled connections
+        DatabaseManager.getInstance().closeConnection();
+    }
+    
     public static void main(String[] args) {
         launch();
     }
@@ -1,5 +1,6 @@
 package com.example.nutrimap.controller;
 
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.BranchDAO;
 import com.example.nutrimap.model.BranchModel;
 import javafx.collections.FXCollections;
@@ -31,16 +32,15 @@ public class BranchesController {
     @FXML private Pagination pagination;
     @FXML private Label resultsLabel;
     
-    private BranchDAO branchDAO;
     private ObservableList<BranchModel> masterData = FXCollections.observableArrayList();
     private FilteredList<BranchModel> filteredData;
+    private PagedTableModel<BranchModel> pager;
     private static final int ROWS_PER_PAGE = 10;
     
     @FXML
     public void initialize() {
-        branchDAO = new BranchDAO();
-        masterData.addAll(branchDAO.getObservableBranches());
         filteredData = new FilteredList<>(masterData, p -> true);
+        pager = new PagedTableModel<>(branchesTable, pagination, resultsLabel, ROWS_PER_PAGE);
         
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colName.setCellValueFactory(new PropertyValueFactory<>("name"));
@@ -102,7 +102,6 @@ public class BranchesController {
             .subtract(colUrl.widthProperty())
             .subtract(20));
         
-        pagination.setPageFactory(this::createPage);
         searchField.textProperty().addListener((obs, oldVal, newVal) -> updateFilter());
         divisionFilter.valueProperty().addListener((obs, oldVal, newVal) -> {
             updateDistrictFilter(newVal);
@@ -113,7 +112,16 @@ public class BranchesController {
             updateFilter();
         });
         upazilaFilter.valueProperty().addListener((obs, oldVal, newVal) -> updateFilter());
-        updateFilter();
+        loadBranches();
+    }
+    
+    // BranchDAO fetches the list from GitHub, so it is built off the FX thread
+    private void loadBranches() {
+        FxFutures.onFx(AsyncDAO.callAsync(() -> new BranchDAO().getObservableBranches()), branches -> {
+            masterData.setAll(branches);
+            setupFilters();
+            updateFilter();
+        });
     }
     
     private void setupFilters() {
@@ -188,28 +196,8 @@ public class BranchesController {
             return true;
         });
         
-        int totalItems = filteredData.size();
-        int pageCount = (totalItems / ROWS_PER_PAGE) + (totalItems % ROWS_PER_PAGE > 0 ? 1 : 0);
-        pagination.setPageCount(Math.max(1, pageCount));
-        pagination.setCurrentPageIndex(0);
-        updateTable(0);
-        resultsLabel.setText("Showing " + totalItems + " results");
-    }
-    
-    private javafx.scene.Node createPage(int pageIndex) {
-        updateTable(pageIndex);
-        return new javafx.scene.layout.VBox();
-    }
-    
-    private void updateTable(int pageIndex) {
-        int fromIndex = pageIndex * ROWS_PER_PAGE;
-        int toIndex = Math.min(fromIndex + ROWS_PER_PAGE, filteredData.size());
-        if (fromIndex > toIndex) fromIndex = toIndex;
-        ObservableList<BranchModel> pageItems = FXCollections.observableArrayList();
-        for (int i = fromIndex; i < toIndex; i++) {
-            pageItems.add(filteredData.get(i));
-        }
-        branchesTable.setItems(pageItems);
+        // Branches are a small read-only list held in memory; only the paging is shared
+        pager.setSource(PagedTableModel.ofList(filteredData));
     }
     
     @FXML
@@ -221,11 +209,7 @@ public class BranchesController {
     }
     
     public void refreshTable() {
-        branchDAO = new BranchDAO();
-        masterData.clear();
-        masterData.addAll(branchDAO.getObservableBranches());
-        setupFilters();
-        updateFilter();
+        loadBranches();
     }
     
     public void showSuccessAlert(String title, String message) {
@@ -1,12 +1,12 @@
 package com.example.nutrimap.controller;
 
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.VisitDAO;
 import com.example.nutrimap.model.ChildModel;
 import com.example.nutrimap.model.VisitModel;
 import com.example.nutrimap.util.NutritionRiskCalculator;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -16,7 +16,6 @@ import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
 import javafx.scene.shape.Circle;
 
-import java.util.List;
 
 public class ChildProfileController {
     @FXML private Label childNameLabel;
@@ -48,13 +47,13 @@ public class ChildProfileController {
     private Pane parentContainer;
     private javafx.scene.Node previousView;
     private ChildrenController childrenController;
-    private VisitDAO visitDAO;
+    private AsyncDAO<VisitDAO> asyncVisitDAO;
     private ObservableList<VisitModel> visitsList = FXCollections.observableArrayList();
     private static final int ROWS_PER_PAGE = 10;
 
     @FXML
     public void initialize() {
-        visitDAO = new VisitDAO();
+        asyncVisitDAO = AsyncDAO.of(new VisitDAO());
         setupTableColumns();
     }
 
@@ -148,15 +147,8 @@ public class ChildProfileController {
     }
 
     private void loadVisitsInBackground() {
-        Task<List<VisitModel>> loadTask = new Task<>() {
-            @Override
-            protected List<VisitModel> call() {
-                return visitDAO.getByChildId(child.getId());
-            }
-        };
-
-        loadTask.setOnSucceeded(event -> {
-            List<VisitModel> visits = loadTask.getValue();
+        int childId = child.getId();
+        FxFutures.onFx(asyncVisitDAO.supply(dao -> dao.getByChildId(childId)), visits -> {
             visitsList.clear();
             visitsList.addAll(visits);
 
@@ -175,17 +167,14 @@ public class ChildProfileController {
             }
 
             updatePagination();
-        });
-
-        loadTask.setOnFailed(event -> {
+        }, e -> {
+            e.printStackTrace();
             noVisitsLabel.setVisible(true);
             noVisitsLabel.setManaged(true);
             noVisitsLabel.setText("Failed to load visits");
             setStatusBadge(nutritionLevelLabel, "N/A", "status-na");
             setStatusBadge(riskLevelLabel, "N/A", "status-na");
         });
-
-        new Thread(loadTask).start();
     }
 
     /**
@@ -244,12 +233,12 @@ public class ChildProfileController {
         
         // Display nutrition level
         String nutritionDisplay = result.getNutritionLevelDisplay();
-        String nutritionStyle = NutritionRiskCalculator.getNutritionStyleClass(result.getNutritionLevel());
+        String nutritionStyle = result.getNutrition().getStyleClass();
         setStatusBadge(nutritionLevelLabel, nutritionDisplay, nutritionStyle);
         
         // Display risk level
         String riskDisplay = result.getRiskLevelDisplay();
-        String riskStyle = NutritionRiskCalculator.getRiskStyleClass(result.getRiskLevel());
+        String riskStyle = result.getRisk().getStyleClass();
         setStatusBadge(riskLevelLabel, riskDisplay, riskStyle);
         
         // Log z-score for debugging
@@ -337,9 +326,10 @@ public class ChildProfileController {
 
         java.util.Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.YES) {
-            visitDAO.deleteVisit(visit.getVisitId());
-            loadVisitsInBackground();
-            showSuccessAlert("Success", "Visit record deleted successfully!");
+            FxFutures.onFx(asyncVisitDAO.run(dao -> dao.deleteVisit(visit.getVisitId())), done -> {
+                loadVisitsInBackground();
+                showSuccessAlert("Success", "Visit record deleted successfully!");
+            });
         }
     }
 
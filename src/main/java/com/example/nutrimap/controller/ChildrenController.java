@@ -1,10 +1,9 @@
 package com.example.nutrimap.controller;
 
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.ChildDAO;
 import com.example.nutrimap.model.ChildModel;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
@@ -20,10 +19,13 @@ import javafx.stage.StageStyle;
 import javafx.stage.FileChooser;
 
 import com.example.nutrimap.service.ExportService;
+import com.example.nutrimap.service.ImportService;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class ChildrenController {
     @FXML private TextField searchField;
@@ -38,20 +40,22 @@ public class ChildrenController {
     @FXML private TableColumn<ChildModel, String> colArea;
     @FXML private TableColumn<ChildModel, String> colBranch;
     @FXML private TableColumn<ChildModel, String> colLastVisit;
+    @FXML private TableColumn<ChildModel, String> colRisk;
     @FXML private TableColumn<ChildModel, Void> colActions;
     @FXML private Pagination pagination;
     @FXML private Label resultsLabel;
+    @FXML private Button importCsvButton;
     
     private ChildDAO childDAO;
-    private ObservableList<ChildModel> masterData = FXCollections.observableArrayList();
-    private FilteredList<ChildModel> filteredData;
+    private AsyncDAO<ChildDAO> asyncChildDAO;
+    private PagedTableModel<ChildModel> pager;
     private static final int ROWS_PER_PAGE = 10;
     
     @FXML
     public void initialize() {
         childDAO = new ChildDAO();
-        masterData.addAll(childDAO.getObservableChildren());
-        filteredData = new FilteredList<>(masterData, p -> true);
+        asyncChildDAO = AsyncDAO.of(childDAO);
+        pager = new PagedTableModel<>(childrenTable, pagination, resultsLabel, ROWS_PER_PAGE);
         
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colFullName.setCellValueFactory(new PropertyValueFactory<>("fullName"));
@@ -61,6 +65,7 @@ public class ChildrenController {
         colMothersName.setCellValueFactory(new PropertyValueFactory<>("mothersName"));
         colContact.setCellValueFactory(new PropertyValueFactory<>("contactNumber"));
         colLastVisit.setCellValueFactory(new PropertyValueFactory<>("displayLastVisit"));
+        colRisk.setCellValueFactory(new PropertyValueFactory<>("displayRiskLevel"));
         colBranch.setCellValueFactory(new PropertyValueFactory<>("branchName"));
         
         colArea.setCellValueFactory(new PropertyValueFactory<>("area"));
@@ -129,53 +134,33 @@ public class ChildrenController {
             .subtract(colContact.widthProperty())
             .subtract(colBranch.widthProperty())
             .subtract(colLastVisit.widthProperty())
+            .subtract(colRisk.widthProperty())
             .subtract(colActions.widthProperty())
             .subtract(20));
         
-        pagination.setPageFactory(this::createPage);
-        
         searchField.textProperty().addListener((obs, oldVal, newVal) -> updateFilter());
         updateFilter();
     }
     
     private void updateFilter() {
-        String search = searchField.getText() == null ? "" : searchField.getText().toLowerCase();
+        String search = searchField.getText() == null ? "" : searchField.getText().trim();
         
-        filteredData.setPredicate(child -> {
-            if (search.isEmpty()) return true;
-            
-            return (child.getFullName() != null && child.getFullName().toLowerCase().contains(search)) ||
-                   (child.getFathersName() != null && child.getFathersName().toLowerCase().contains(search)) ||
-                   (child.getMothersName() != null && child.getMothersName().toLowerCase().contains(search)) ||
-                   (child.getBranchName() != null && child.getBranchName().toLowerCase().contains(search)) ||
-                   (child.getDivision() != null && child.getDivision().toLowerCase().contains(search)) ||
-                   (child.getDistrict() != null && child.getDistrict().toLowerCase().contains(search)) ||
-                   (child.getUpazilla() != null && child.getUpazilla().toLowerCase().contains(search)) ||
-                   (child.getUnionName() != null && child.getUnionName().toLowerCase().contains(search));
-        });
-        
-        int totalItems = filteredData.size();
-        int pageCount = (totalItems / ROWS_PER_PAGE) + (totalItems % ROWS_PER_PAGE > 0 ? 1 : 0);
-        pagination.setPageCount(Math.max(1, pageCount));
-        pagination.setCurrentPageIndex(0);
-        updateTable(0);
-        resultsLabel.setText("Showing " + totalItems + " results");
-    }
-    
-    private javafx.scene.Node createPage(int pageIndex) {
-        updateTable(pageIndex);
-        return new javafx.scene.layout.VBox();
-    }
-    
-    private void updateTable(int pageIndex) {
-        int fromIndex = pageIndex * ROWS_PER_PAGE;
-        int toIndex = Math.min(fromIndex + ROWS_PER_PAGE, filteredData.size());
-        if (fromIndex > toIndex) fromIndex = toIndex;
-        ObservableList<ChildModel> pageItems = FXCollections.observableArrayList();
-        for (int i = fromIndex; i < toIndex; i++) {
-            pageItems.add(filteredData.get(i));
+        // Matching runs on the children_fts index; the full list is paged by keyset
+        if (search.isEmpty()) {
+            pager.setSource(new PagedTableModel.Source<>() {
+                @Override
+                public int count() {
+                    return childDAO.getCount();
+                }
+                
+                @Override
+                public List<ChildModel> fetch(ChildModel after, int skip, int limit) {
+                    return childDAO.getPageAfter(after, skip, limit);
+                }
+            });
+        } else {
+            pager.setSource(PagedTableModel.ofQuery(() -> childDAO.search(search)));
         }
-        childrenTable.setItems(pageItems);
     }
     
     @FXML
@@ -232,16 +217,14 @@ public class ChildrenController {
         
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.YES) {
-            childDAO.deleteChild(child.getId());
-            refreshTable();
-            showSuccessAlert("Success", "Child record deleted successfully!");
+            FxFutures.onFx(asyncChildDAO.run(dao -> dao.deleteChild(child.getId())), done -> {
+                refreshTable();
+                showSuccessAlert("Success", "Child record deleted successfully!");
+            });
         }
     }
     
     public void refreshTable() {
-        childDAO = new ChildDAO();
-        masterData.clear();
-        masterData.addAll(childDAO.getObservableChildren());
         updateFilter();
     }
     
@@ -303,6 +286,54 @@ public class ChildrenController {
         }
     }
     
+    @FXML
+    private void handleImportCsv() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Children from CSV");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        
+        File file = fileChooser.showOpenDialog(childrenTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        File rejectedFile = ImportService.defaultRejectedFile(file);
+        Task<ImportService.ImportResult> importTask = new Task<>() {
+            @Override
+            protected ImportService.ImportResult call() throws Exception {
+                return new ImportService().importCsv(file, rejectedFile, progress ->
+                    updateMessage("Importing... " + progress.getImported() + " imported, " + progress.getRejected() + " rejected"));
+            }
+        };
+        
+        importCsvButton.setDisable(true);
+        resultsLabel.textProperty().bind(importTask.messageProperty());
+        
+        importTask.setOnSucceeded(event -> {
+            resultsLabel.textProperty().unbind();
+            importCsvButton.setDisable(false);
+            refreshTable();
+            ImportService.ImportResult result = importTask.getValue();
+            String message = result.getImported() + " of " + result.getRowsRead() + " rows imported.";
+            if (result.getRejected() > 0) {
+                message += "\n" + result.getRejected() + " rejected rows were written to " + rejectedFile.getName() + ".";
+            }
+            showSuccessAlert("Import Finished", message);
+        });
+        
+        importTask.setOnFailed(event -> {
+            resultsLabel.textProperty().unbind();
+            importCsvButton.setDisable(false);
+            refreshTable();
+            importTask.getException().printStackTrace();
+            showErrorAlert("Import Failed", "Failed to import data: " + importTask.getException().getMessage());
+        });
+        
+        Thread importThread = new Thread(importTask, "nutrimap-import");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+    
     @FXML
     private void handleExportCsv() {
         FileChooser fileChooser = new FileChooser();
@@ -312,13 +343,15 @@ public class ChildrenController {
         
         File file = fileChooser.showSaveDialog(childrenTable.getScene().getWindow());
         if (file != null) {
-            try {
-                ExportService.exportChildrenToCsv(childDAO.getAll(), file);
-                showSuccessAlert("Export Successful", "Children data exported to CSV successfully!");
-            } catch (IOException e) {
+            FxFutures.onFx(AsyncDAO.callAsync(() -> {
+                try (Stream<ChildModel> children = childDAO.streamChildren()) {
+                    ExportService.exportChildrenToCsv(children::iterator, file);
+                }
+                return null;
+            }), done -> showSuccessAlert("Export Successful", "Children data exported to CSV successfully!"), e -> {
                 e.printStackTrace();
                 showErrorAlert("Export Failed", "Failed to export data: " + e.getMessage());
-            }
+            });
         }
     }
     
@@ -331,13 +364,15 @@ public class ChildrenController {
         
         File file = fileChooser.showSaveDialog(childrenTable.getScene().getWindow());
         if (file != null) {
-            try {
-                ExportService.exportChildrenToPdf(childDAO.getAll(), file);
-                showSuccessAlert("Export Successful", "Children report exported to PDF successfully!");
-            } catch (Exception e) {
+            FxFutures.onFx(AsyncDAO.callAsync(() -> {
+                try (Stream<ChildModel> children = childDAO.streamChildren()) {
+                    ExportService.exportChildrenToPdf(children::iterator, file);
+                }
+                return null;
+            }), done -> showSuccessAlert("Export Successful", "Children report exported to PDF successfully!"), e -> {
                 e.printStackTrace();
                 showErrorAlert("Export Failed", "Failed to export PDF: " + e.getMessage());
-            }
+            });
         }
     }
     
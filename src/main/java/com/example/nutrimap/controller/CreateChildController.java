@@ -11,6 +11,7 @@ import javafx.util.StringConverter;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class CreateChildController {
     
@@ -288,14 +289,7 @@ public class CreateChildController {
                 newChild.setBranchName(matchedBranch.getName());
             }
             
-            childDAO.addChild(newChild);
-            
-            closeWindow();
-            
-            if (parentController != null) {
-                parentController.refreshTable();
-                parentController.showSuccessAlert("Success", "Child added successfully!");
-            }
+            save(AsyncDAO.of(childDAO).run(dao -> dao.addChild(newChild)), "Child added successfully!");
         } else if (currentMode == Mode.EDIT && editingChild != null) {
             editingChild.setFullName(fullName);
             editingChild.setGender(gender);
@@ -313,15 +307,25 @@ public class CreateChildController {
                 editingChild.setBranchName(matchedBranch.getName());
             }
             
-            childDAO.updateChild(editingChild);
-            
+            ChildModel child = editingChild;
+            save(AsyncDAO.of(childDAO).run(dao -> dao.updateChild(child)), "Child updated successfully!");
+        }
+    }
+    
+    private void save(CompletableFuture<Void> saving, String successMessage) {
+        submitButton.setDisable(true);
+        FxFutures.onFx(saving, done -> {
             closeWindow();
             
             if (parentController != null) {
                 parentController.refreshTable();
-                parentController.showSuccessAlert("Success", "Child updated successfully!");
+                parentController.showSuccessAlert("Success", successMessage);
             }
-        }
+        }, e -> {
+            e.printStackTrace();
+            submitButton.setDisable(false);
+            showAlert("Error", "Failed to save child: " + e.getMessage());
+        });
     }
     
     private void closeWindow() {
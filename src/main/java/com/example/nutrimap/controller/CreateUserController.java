@@ -1,4 +1,5 @@
 package com.example.nutrimap.controller;
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.UserDAO;
 import com.example.nutrimap.model.UserModel;
 import javafx.fxml.FXML;
@@ -19,13 +20,13 @@ public class CreateUserController {
     @FXML private Button submitButton;
     
     private UsersController parentController;
-    private UserDAO userDAO;
+    private AsyncDAO<UserDAO> userDAO;
     private Mode currentMode = Mode.CREATE;
     private UserModel editingUser = null;
     
     @FXML
     public void initialize() {
-        userDAO = new UserDAO();
+        userDAO = AsyncDAO.of(new UserDAO());
         roleCombo.getItems().addAll("ADMIN", "USER");
         roleCombo.getSelectionModel().select("USER");
     }
@@ -67,41 +68,53 @@ public class CreateUserController {
             return;
         }
         
-        if (currentMode == Mode.CREATE) {
-            if (userDAO.getByEmail(email) != null) {
-                showAlert("Error", "User with this email already exists.");
+        // The email check and the save run off the FX thread
+        submitButton.setDisable(true);
+        String successMessage = currentMode == Mode.CREATE ? "User created successfully!" : "User updated successfully!";
+        FxFutures.onFx(userDAO.supply(dao -> saveUser(dao, name, email, password, role)), error -> {
+            if (error != null) {
+                submitButton.setDisable(false);
+                showAlert("Error", error);
                 return;
             }
             
-            UserModel newUser = new UserModel(0, name, email, password, role, "");
-            userDAO.addUser(newUser);
-            
             closeWindow();
             
             if (parentController != null) {
                 parentController.refreshTable();
-                parentController.showSuccessAlert("Success", "User created successfully!");
+                parentController.showSuccessAlert("Success", successMessage);
+            }
+        }, e -> {
+            e.printStackTrace();
+            submitButton.setDisable(false);
+            showAlert("Error", "Failed to save user: " + e.getMessage());
+        });
+    }
+    
+    /**
+     * @return error message to show, or null when the user was saved
+     */
+    private String saveUser(UserDAO dao, String name, String email, String password, String role) {
+        if (currentMode == Mode.CREATE) {
+            if (dao.getByEmail(email) != null) {
+                return "User with this email already exists.";
             }
+            
+            UserModel newUser = new UserModel(0, name, email, password, role, "");
+            dao.addUser(newUser);
         } else if (currentMode == Mode.EDIT && editingUser != null) {
-            UserModel existingUser = userDAO.getByEmail(email);
+            UserModel existingUser = dao.getByEmail(email);
             if (existingUser != null && existingUser.getId() != editingUser.getId()) {
-                showAlert("Error", "Another user with this email already exists.");
-                return;
+                return "Another user with this email already exists.";
             }
             
             editingUser.setName(name);
             editingUser.setEmail(email);
             editingUser.setPassword(password);
             editingUser.setRole(role);
-            userDAO.updateUser(editingUser);
-            
-            closeWindow();
-            
-            if (parentController != null) {
-                parentController.refreshTable();
-                parentController.showSuccessAlert("Success", "User updated successfully!");
-            }
+            dao.updateUser(editingUser);
         }
+        return null;
     }
     
     private void closeWindow() {
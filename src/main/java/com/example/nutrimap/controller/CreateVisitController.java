@@ -1,8 +1,10 @@
 package com.example.nutrimap.controller;
 
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.ChildDAO;
 import com.example.nutrimap.dao.VisitDAO;
-import com.example.nutrimap.model.ChildModel;
+import com.example.nutrimap.model.ChildSummary;
+import com.example.nutrimap.model.VisitMeasurement;
 import com.example.nutrimap.model.VisitModel;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
@@ -22,7 +24,7 @@ public class CreateVisitController {
         CREATE, EDIT
     }
     
-    @FXML private ComboBox<ChildModel> childCombo;
+    @FXML private ComboBox<ChildSummary> childCombo;
     @FXML private DatePicker visitDatePicker;
     @FXML private TextField weightField;
     @FXML private TextField heightField;
@@ -49,18 +51,25 @@ public class CreateVisitController {
     }
     
     private void loadChildren() {
-        List<ChildModel> children = childDAO.getAll();
-        childCombo.setItems(FXCollections.observableArrayList(children));
+        childCombo.setDisable(true);
+        FxFutures.onFx(AsyncDAO.of(childDAO).supply(ChildDAO::getSummaries), children -> {
+            childCombo.setItems(FXCollections.observableArrayList(children));
+            childCombo.setDisable(false);
+            // setMode may have run before the list arrived
+            if (editingVisit != null) {
+                selectChild(editingVisit.getChildId());
+            }
+        });
         
-        childCombo.setConverter(new StringConverter<ChildModel>() {
+        childCombo.setConverter(new StringConverter<ChildSummary>() {
             @Override
-            public String toString(ChildModel child) {
+            public String toString(ChildSummary child) {
                 if (child == null) return "";
                 return child.getFullName() + " (ID: " + child.getId() + ")";
             }
             
             @Override
-            public ChildModel fromString(String string) {
+            public ChildSummary fromString(String string) {
                 return null;
             }
         });
@@ -94,12 +103,7 @@ public class CreateVisitController {
             titleLabel.setText("Edit Visit");
             submitButton.setText("Update Visit");
             
-            for (ChildModel child : childCombo.getItems()) {
-                if (child.getId() == visit.getChildId()) {
-                    childCombo.setValue(child);
-                    break;
-                }
-            }
+            selectChild(visit.getChildId());
             
             if (visit.getVisitDate() != null && !visit.getVisitDate().isEmpty()) {
                 try {
@@ -116,6 +120,15 @@ public class CreateVisitController {
         }
     }
     
+    private void selectChild(int childId) {
+        for (ChildSummary child : childCombo.getItems()) {
+            if (child.getId() == childId) {
+                childCombo.setValue(child);
+                break;
+            }
+        }
+    }
+    
     @FXML
     private void handleCancel() {
         closeWindow();
@@ -123,7 +136,7 @@ public class CreateVisitController {
     
     @FXML
     private void handleCreate() {
-        ChildModel selectedChild = childCombo.getValue();
+        ChildSummary selectedChild = childCombo.getValue();
         LocalDate visitDate = visitDatePicker.getValue();
         String weightStr = weightField.getText() != null ? weightField.getText().trim() : "";
         String heightStr = heightField.getText() != null ? heightField.getText().trim() : "";
@@ -165,9 +178,30 @@ public class CreateVisitController {
             return;
         }
         
+        // Trend lookup, risk evaluation and the save run off the FX thread
+        submitButton.setDisable(true);
+        String successMessage = currentMode == Mode.CREATE ? "Visit added successfully!" : "Visit updated successfully!";
+        FxFutures.onFx(AsyncDAO.callAsync(() -> {
+            saveVisit(selectedChild, visitDate, weight, height, muac, notes);
+            return null;
+        }), done -> {
+            closeWindow();
+            
+            if (parentController != null) {
+                parentController.refreshTable();
+                parentController.showSuccessAlert("Success", successMessage);
+            }
+        }, e -> {
+            e.printStackTrace();
+            submitButton.setDisable(false);
+            showAlert("Error", "Failed to save visit: " + e.getMessage());
+        });
+    }
+    
+    private void saveVisit(ChildSummary selectedChild, LocalDate visitDate, double weight, double height, int muac, String notes) {
         // Get previous visit for trend analysis
-        List<VisitModel> previousVisits = visitDAO.getByChildId(selectedChild.getId());
-        VisitModel previousVisit = null;
+        List<VisitMeasurement> previousVisits = visitDAO.getRecentMeasurements(selectedChild.getId(), 2);
+        VisitMeasurement previousVisit = null;
         if (!previousVisits.isEmpty()) {
             // In CREATE mode, the first visit is the previous one
             // In EDIT mode, we need to skip the current visit being edited
@@ -223,13 +257,7 @@ public class CreateVisitController {
             newVisit.setRiskLevel(riskLevel);
             
             visitDAO.addVisit(newVisit);
-            
-            closeWindow();
-            
-            if (parentController != null) {
-                parentController.refreshTable();
-                parentController.showSuccessAlert("Success", "Visit added successfully!");
-            }
+
         } else if (currentMode == Mode.EDIT && editingVisit != null) {
             editingVisit.setChildId(selectedChild.getId());
             editingVisit.setVisitDate(DATE_FORMATTER.format(visitDate));
@@ -240,13 +268,7 @@ public class CreateVisitController {
             editingVisit.setRiskLevel(riskLevel);
             
             visitDAO.updateVisit(editingVisit);
-            
-            closeWindow();
-            
-            if (parentController != null) {
-                parentController.refreshTable();
-                parentController.showSuccessAlert("Success", "Visit updated successfully!");
-            }
+
         }
     }
     
@@ -26,6 +26,7 @@ public class DashboardController {
     @FXML private Button branchesButton;
     @FXML private Button childrenButton;
     @FXML private Button visitsButton;
+    @FXML private Button diagnosticsButton;
     
     private UserModel loggedUser;
     
@@ -47,7 +48,7 @@ public class DashboardController {
      * Apply role-based access control to sidebar buttons.
      * 
      * ADMIN: Full access to everything
-     * SUPERVISOR: Same as Admin except Users management
+     * SUPERVISOR: Same as Admin except Users management and Diagnostics
      * FIELD_WORKER: Children, Visits, Profile only
      */
     private void applyRoleBasedAccess(String role) {
@@ -61,9 +62,11 @@ public class DashboardController {
                 break;
                 
             case "SUPERVISOR":
-                // Supervisor: hide Users button only
+                // Supervisor: hide Users and Diagnostics
                 usersButton.setVisible(false);
                 usersButton.setManaged(false);
+                diagnosticsButton.setVisible(false);
+                diagnosticsButton.setManaged(false);
                 break;
                 
             case "FIELD_WORKER":
@@ -76,6 +79,8 @@ public class DashboardController {
                 usersButton.setManaged(false);
                 branchesButton.setVisible(false);
                 branchesButton.setManaged(false);
+                diagnosticsButton.setVisible(false);
+                diagnosticsButton.setManaged(false);
                 
                 // For field worker, start with children view instead of home
                 showChildren();
@@ -87,6 +92,8 @@ public class DashboardController {
                 usersButton.setManaged(false);
                 branchesButton.setVisible(false);
                 branchesButton.setManaged(false);
+                diagnosticsButton.setVisible(false);
+                diagnosticsButton.setManaged(false);
                 break;
         }
     }
@@ -125,6 +132,11 @@ public class DashboardController {
         loadView("/com/example/nutrimap/view/visits-view.fxml", null);
     }
     
+    @FXML
+    private void showDiagnostics() {
+        loadView("/com/example/nutrimap/view/diagnostics-view.fxml", null);
+    }
+    
     @FXML
     private void handleLogout() {
         try {
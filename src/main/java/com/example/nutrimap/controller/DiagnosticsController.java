@@ -0,0 +1,114 @@
+package com.example.nutrimap.controller;
+
+import com.example.nutrimap.dao.DatabaseManager;
+import com.example.nutrimap.dao.QueryMetrics;
+import com.example.nutrimap.model.QueryTiming;
+import com.example.nutrimap.model.SlowQuery;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.cell.PropertyValueFactory;
+
+import java.util.List;
+
+/**
+ * Controller for the diagnostics view: per-query latency from QueryMetrics, connection
+ * waits, statement cache hit rate and the most recent slow queries. Admin only.
+ */
+public class DiagnosticsController {
+    @FXML private Label cacheHitLabel;
+    @FXML private Label queryCountLabel;
+    @FXML private Label slowTitleLabel;
+    @FXML private Label slowCountLabel;
+    @FXML private Label logPathLabel;
+    @FXML private TableView<QueryTiming> timingsTable;
+    @FXML private TableColumn<QueryTiming, String> colName;
+    @FXML private TableColumn<QueryTiming, Long> colCalls;
+    @FXML private TableColumn<QueryTiming, Long> colErrors;
+    @FXML private TableColumn<QueryTiming, Long> colRows;
+    @FXML private TableColumn<QueryTiming, Double> colMean;
+    @FXML private TableColumn<QueryTiming, Double> colP50;
+    @FXML private TableColumn<QueryTiming, Double> colP95;
+    @FXML private TableColumn<QueryTiming, Double> colP99;
+    @FXML private TableColumn<QueryTiming, Double> colMax;
+    @FXML private TableColumn<QueryTiming, Double> colTotal;
+    @FXML private TableView<SlowQuery> slowTable;
+    @FXML private TableColumn<SlowQuery, String> colSlowTime;
+    @FXML private TableColumn<SlowQuery, String> colSlowName;
+    @FXML private TableColumn<SlowQuery, Double> colSlowMillis;
+    @FXML private TableColumn<SlowQuery, Long> colSlowRows;
+    @FXML private TableColumn<SlowQuery, String> colSlowParams;
+
+    private final QueryMetrics metrics = QueryMetrics.getInstance();
+
+    @FXML
+    public void initialize() {
+        colName.setCellValueFactory(new PropertyValueFactory<>("name"));
+        colCalls.setCellValueFactory(new PropertyValueFactory<>("calls"));
+        colErrors.setCellValueFactory(new PropertyValueFactory<>("errors"));
+        colRows.setCellValueFactory(new PropertyValueFactory<>("rows"));
+        setupMillisColumn(colMean, "meanMs");
+        setupMillisColumn(colP50, "p50Ms");
+        setupMillisColumn(colP95, "p95Ms");
+        setupMillisColumn(colP99, "p99Ms");
+        setupMillisColumn(colMax, "maxMs");
+        setupMillisColumn(colTotal, "totalMs");
+
+        colSlowTime.setCellValueFactory(new PropertyValueFactory<>("time"));
+        colSlowName.setCellValueFactory(new PropertyValueFactory<>("name"));
+        setupMillisColumn(colSlowMillis, "millis");
+        colSlowRows.setCellValueFactory(new PropertyValueFactory<>("rows"));
+        colSlowParams.setCellValueFactory(new PropertyValueFactory<>("parameters"));
+
+        slowTitleLabel.setText("Slow Queries (> " + metrics.getSlowQueryThresholdMs() + " ms)");
+        logPathLabel.setText("Slow query log: " + metrics.getSlowQueryLog());
+        refresh();
+    }
+
+    private <S> void setupMillisColumn(TableColumn<S, Double> column, String property) {
+        column.setCellValueFactory(new PropertyValueFactory<>(property));
+        column.setCellFactory(tc -> new TableCell<S, Double>() {
+            @Override
+            protected void updateItem(Double item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : String.format("%.2f", item));
+            }
+        });
+    }
+
+    // Everything shown is already in memory, so this stays on the FX thread
+    private void refresh() {
+        List<QueryTiming> timings = metrics.getTimings();
+        List<SlowQuery> slowQueries = metrics.getSlowQueries();
+        timingsTable.setItems(FXCollections.observableArrayList(timings));
+        slowTable.setItems(FXCollections.observableArrayList(slowQueries));
+
+        long calls = 0;
+        for (QueryTiming timing : timings) {
+            if (!timing.getName().startsWith("(")) {
+                calls += timing.getCalls();
+            }
+        }
+        queryCountLabel.setText(String.valueOf(calls));
+        slowCountLabel.setText(String.valueOf(slowQueries.size()));
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        long hits = db.getStatementCacheHits();
+        long lookups = hits + db.getStatementCacheMisses();
+        cacheHitLabel.setText(lookups > 0 ? String.format("%.1f%%", 100.0 * hits / lookups) : "N/A");
+    }
+
+    @FXML
+    private void handleRefresh() {
+        refresh();
+    }
+
+    @FXML
+    private void handleReset() {
+        metrics.reset();
+        refresh();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.nutrimap.controller;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Completion helpers that hand the result of background work (usually an AsyncDAO call)
+ * back to the JavaFX Application Thread.
+ */
+public final class FxFutures {
+
+    private FxFutures() {
+    }
+
+    /**
+     * Run onSuccess on the FX thread with the result. Failures are logged.
+     *
+     * @return the same future, so the caller can still cancel it
+     */
+    public static <T> CompletableFuture<T> onFx(CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        return onFx(future, onSuccess, Throwable::printStackTrace);
+    }
+
+    /**
+     * Run onSuccess with the result, or onFailure with the cause, on the FX thread.
+     * Neither runs if the future was cancelled.
+     *
+     * @return the same future, so the caller can still cancel it
+     */
+    public static <T> CompletableFuture<T> onFx(CompletableFuture<T> future, Consumer<? super T> onSuccess,
+                                                Consumer<Throwable> onFailure) {
+        future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            Platform.runLater(() -> {
+                if (error != null) {
+                    onFailure.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                } else {
+                    onSuccess.accept(result);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Cancel a pending call whose result is no longer wanted, e.g. the previous search
+     * when the user types another character. Null is ignored.
+     */
+    public static void cancel(CompletableFuture<?> future) {
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+}
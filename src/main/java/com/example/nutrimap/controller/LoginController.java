@@ -1,12 +1,14 @@
 package com.example.nutrimap.controller;
 
 import com.example.nutrimap.HelloApplication;
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.UserDAO;
 import com.example.nutrimap.model.UserModel;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
 import javafx.scene.control.TextField;
@@ -19,17 +21,21 @@ public class LoginController {
     @FXML private TextField emailField;
     @FXML private PasswordField passwordField;
     @FXML private Label errorLabel;
+    @FXML private Button loginButton;
     
-    private UserDAO userDAO;
+    private AsyncDAO<UserDAO> userDAO;
     
     @FXML
     public void initialize() {
-        userDAO = new UserDAO();
+        userDAO = AsyncDAO.of(new UserDAO());
         errorLabel.setText("");
     }
     
     @FXML
     private void handleLogin() {
+        if (loginButton.isDisable()) {
+            return;
+        }
         String email = emailField.getText() != null ? emailField.getText().trim() : "";
         String password = passwordField.getText() != null ? passwordField.getText().trim() : "";
         
@@ -44,15 +50,26 @@ public class LoginController {
             return;
         }
         
-        // Authenticate user
-        UserModel user = userDAO.authenticate(email, password);
-        
-        if (user != null) {
-            // Login successful - navigate to dashboard
-            navigateToDashboard(user);
-        } else {
-            showError("Invalid email or password.");
-        }
+        // Authenticate user off the FX thread; the button stays disabled until it answers
+        setBusy(true);
+        FxFutures.onFx(userDAO.supply(dao -> dao.authenticate(email, password)), user -> {
+            setBusy(false);
+            if (user != null) {
+                // Login successful - navigate to dashboard
+                navigateToDashboard(user);
+            } else {
+                showError("Invalid email or password.");
+            }
+        }, e -> {
+            setBusy(false);
+            e.printStackTrace();
+            showError("Login failed, please try again.");
+        });
+    }
+    
+    private void setBusy(boolean busy) {
+        loginButton.setDisable(busy);
+        errorLabel.setText(busy ? "Signing in..." : "");
     }
     
     private void showError(String message) {
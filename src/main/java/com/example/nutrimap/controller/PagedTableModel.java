@@ -0,0 +1,153 @@
+package com.example.nutrimap.controller;
+
+import com.example.nutrimap.dao.AsyncDAO;
+import javafx.collections.FXCollections;
+import javafx.scene.control.Label;
+import javafx.scene.control.Pagination;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.VBox;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Pages a TableView through a {@link Source}, bound to a Pagination control and a
+ * "Showing N results" label. Only the visible page is held in memory.
+ *
+ * Pages are fetched by keyset: the last row of an earlier page is handed back to the source,
+ * so moving to the next page never re-reads the rows before it. Jumping to a page that was
+ * never loaded continues from the nearest loaded page before it and skips the rows between;
+ * the DAO sources step over those in a narrow index without reading or joining the rows.
+ *
+ * The source is called on a virtual thread (see AsyncDAO); a newer request cancels an older
+ * one that is still running, so a stale page never replaces a fresh one.
+ */
+public class PagedTableModel<T> {
+
+    /**
+     * Supplies the rows of a table view in a fixed order. Called off the FX thread.
+     */
+    public interface Source<T> {
+        int count();
+
+        /**
+         * @param after last row of an earlier page, or null to start from the first row
+         * @param skip rows to skip after it before the page starts
+         */
+        List<T> fetch(T after, int skip, int limit);
+    }
+
+    private final TableView<T> table;
+    private final Pagination pagination;
+    private final Label resultsLabel;
+    private final int rowsPerPage;
+
+    // Last row of every page loaded since the source was set, by page index
+    private final TreeMap<Integer, T> pageEnds = new TreeMap<>();
+    private Source<T> source;
+    private int requestedPage = -1;
+    // Bumped on every refresh / page request; a completion from an older one is ignored
+    private int refreshGeneration;
+    private int pageGeneration;
+    private CompletableFuture<?> pendingCount;
+    private CompletableFuture<?> pendingPage;
+
+    public PagedTableModel(TableView<T> table, Pagination pagination, Label resultsLabel, int rowsPerPage) {
+        this.table = table;
+        this.pagination = pagination;
+        this.resultsLabel = resultsLabel;
+        this.rowsPerPage = rowsPerPage;
+        pagination.setPageFactory(pageIndex -> {
+            loadPage(pageIndex);
+            return new VBox();
+        });
+    }
+
+    /**
+     * Rows already held in memory, such as the branch list.
+     */
+    public static <T> Source<T> ofList(List<T> rows) {
+        return ofQuery(() -> rows);
+    }
+
+    /**
+     * Rows produced by one query, such as a full-text search, run when the source is counted.
+     */
+    public static <T> Source<T> ofQuery(Supplier<List<T>> query) {
+        return new Source<>() {
+            private List<T> rows;
+
+            @Override
+            public int count() {
+                rows = query.get();
+                return rows.size();
+            }
+
+            @Override
+            public List<T> fetch(T after, int skip, int limit) {
+                int from = Math.min(rows.size(), (after != null ? rows.indexOf(after) + 1 : 0) + skip);
+                return rows.subList(from, Math.min(from + limit, rows.size()));
+            }
+        };
+    }
+
+    /**
+     * Show a new source from its first page.
+     */
+    public void setSource(Source<T> source) {
+        this.source = source;
+        refresh();
+    }
+
+    /**
+     * Re-count the source and reload from the first page, e.g. after rows were added or deleted.
+     */
+    public void refresh() {
+        FxFutures.cancel(pendingCount);
+        FxFutures.cancel(pendingPage);
+        int request = ++refreshGeneration;
+        pageGeneration++;
+        pageEnds.clear();
+        requestedPage = 0;
+
+        Source<T> counted = source;
+        pendingCount = FxFutures.onFx(AsyncDAO.callAsync(counted::count), totalItems -> {
+            if (request != refreshGeneration) {
+                return;
+            }
+            int pageCount = (totalItems / rowsPerPage) + (totalItems % rowsPerPage > 0 ? 1 : 0);
+            pagination.setPageCount(Math.max(1, pageCount));
+            pagination.setCurrentPageIndex(0);
+            resultsLabel.setText("Showing " + totalItems + " results");
+            requestedPage = -1;
+            loadPage(0);
+        });
+    }
+
+    private void loadPage(int pageIndex) {
+        if (source == null || pageIndex == requestedPage) {
+            return;
+        }
+        FxFutures.cancel(pendingPage);
+        int request = ++pageGeneration;
+        requestedPage = pageIndex;
+
+        Map.Entry<Integer, T> start = pageEnds.lowerEntry(pageIndex);
+        T after = start != null ? start.getValue() : null;
+        int skippedPages = pageIndex - (start != null ? start.getKey() + 1 : 0);
+
+        Source<T> paged = source;
+        pendingPage = FxFutures.onFx(AsyncDAO.callAsync(() -> paged.fetch(after, skippedPages * rowsPerPage, rowsPerPage)), rows -> {
+            if (request != pageGeneration) {
+                return;
+            }
+            if (!rows.isEmpty()) {
+                pageEnds.put(pageIndex, rows.get(rows.size() - 1));
+            }
+            table.setItems(FXCollections.observableArrayList(rows));
+        });
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.nutrimap.controller;
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.UserDAO;
 import com.example.nutrimap.model.UserModel;
+import javafx.collections.FXCollections;
 import javafx.collections.transformation.FilteredList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -29,13 +31,13 @@ public class UsersController {
     @FXML private Label resultsLabel;
     @FXML private Pagination pagination;
     
-    private UserDAO userDAO;
+    private AsyncDAO<UserDAO> userDAO;
     private FilteredList<UserModel> filteredData;
     private static final int ROWS_PER_PAGE = 10;
     
     @FXML
     public void initialize() {
-        userDAO = new UserDAO();
+        userDAO = AsyncDAO.of(new UserDAO());
         colId.setCellValueFactory(new PropertyValueFactory<>("id"));
         colName.setCellValueFactory(new PropertyValueFactory<>("name"));
         colEmail.setCellValueFactory(new PropertyValueFactory<>("email"));
@@ -100,9 +102,9 @@ public class UsersController {
             .subtract(colActions.widthProperty())
             .subtract(20));
         
-        filteredData = new FilteredList<>(userDAO.getObservableUsers(), p -> true);
+        filteredData = new FilteredList<>(FXCollections.observableArrayList(), p -> true);
         pagination.setPageFactory(this::createPage);
-        updatePagination();
+        loadData();
         
         searchField.textProperty().addListener((observable, oldValue, newValue) -> {
             filteredData.setPredicate(user -> {
@@ -144,8 +146,11 @@ public class UsersController {
     }
     
     private void loadData() {
-         filteredData = new FilteredList<>(userDAO.getObservableUsers(), p -> true);
-         updatePagination();
+        FxFutures.onFx(userDAO.supply(UserDAO::getAllUsers), users -> {
+            // Keep the current search filter across reloads
+            filteredData = new FilteredList<>(FXCollections.observableArrayList(users), filteredData.getPredicate());
+            updatePagination();
+        });
     }
     
     
@@ -203,15 +208,15 @@ public class UsersController {
         
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.YES) {
-            userDAO.deleteUser(user.getId());
-            refreshTable();
-            showSuccessAlert("Success", "User deleted successfully!");
+            FxFutures.onFx(userDAO.run(dao -> dao.deleteUser(user.getId())), done -> {
+                refreshTable();
+                showSuccessAlert("Success", "User deleted successfully!");
+            });
         }
     }
     
     public void refreshTable() {
-         userDAO = new UserDAO();
-         loadData();
+        loadData();
     }
     
     public void showSuccessAlert(String title, String message) {
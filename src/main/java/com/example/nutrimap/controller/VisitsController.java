@@ -1,10 +1,9 @@
 package com.example.nutrimap.controller;
 
+import com.example.nutrimap.dao.AsyncDAO;
 import com.example.nutrimap.dao.VisitDAO;
 import com.example.nutrimap.model.VisitModel;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
@@ -13,19 +12,29 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import javafx.stage.StageStyle;
 import javafx.stage.FileChooser;
 
 import com.example.nutrimap.service.ExportService;
+import com.example.nutrimap.service.ImportService;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class VisitsController {
     @FXML private TextField searchField;
+    @FXML private DatePicker fromDatePicker;
+    @FXML private DatePicker toDatePicker;
     @FXML private TableView<VisitModel> visitsTable;
     @FXML private TableColumn<VisitModel, Integer> colId;
     @FXML private TableColumn<VisitModel, String> colChildName;
@@ -38,17 +47,18 @@ public class VisitsController {
     @FXML private TableColumn<VisitModel, Void> colActions;
     @FXML private Pagination pagination;
     @FXML private Label resultsLabel;
+    @FXML private Button importCsvButton;
     
     private VisitDAO visitDAO;
-    private ObservableList<VisitModel> masterData = FXCollections.observableArrayList();
-    private FilteredList<VisitModel> filteredData;
+    private AsyncDAO<VisitDAO> asyncVisitDAO;
+    private PagedTableModel<VisitModel> pager;
     private static final int ROWS_PER_PAGE = 10;
     
     @FXML
     public void initialize() {
         visitDAO = new VisitDAO();
-        masterData.addAll(visitDAO.getObservableVisits());
-        filteredData = new FilteredList<>(masterData, p -> true);
+        asyncVisitDAO = AsyncDAO.of(visitDAO);
+        pager = new PagedTableModel<>(visitsTable, pagination, resultsLabel, ROWS_PER_PAGE);
         
         colId.setCellValueFactory(new PropertyValueFactory<>("visitId"));
         colChildName.setCellValueFactory(new PropertyValueFactory<>("childName"));
@@ -58,6 +68,20 @@ public class VisitsController {
         colMuac.setCellValueFactory(new PropertyValueFactory<>("muacMm"));
         colRiskLevel.setCellValueFactory(new PropertyValueFactory<>("riskLevel"));
         colNotes.setCellValueFactory(new PropertyValueFactory<>("notes"));
+        colNotes.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(String notes, boolean empty) {
+                super.updateItem(notes, empty);
+                VisitModel visit = empty ? null : getTableRow().getItem();
+                if (visit == null || visit.getNotesSnippet() == null) {
+                    setGraphic(null);
+                    setText(empty ? null : notes);
+                } else {
+                    setText(null);
+                    setGraphic(highlightedText(visit.getNotesSnippet()));
+                }
+            }
+        });
         
         colActions.setCellFactory(col -> new TableCell<>() {
             private final Button editBtn = new Button("✏️");
@@ -102,45 +126,49 @@ public class VisitsController {
             .subtract(colActions.widthProperty())
             .subtract(20));
         
-        pagination.setPageFactory(this::createPage);
-        
         searchField.textProperty().addListener((obs, oldVal, newVal) -> updateFilter());
+        fromDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> updateFilter());
+        toDatePicker.valueProperty().addListener((obs, oldVal, newVal) -> updateFilter());
         updateFilter();
     }
     
     private void updateFilter() {
-        String search = searchField.getText() == null ? "" : searchField.getText().toLowerCase();
+        String search = searchField.getText() == null ? "" : searchField.getText().trim();
+        LocalDate from = fromDatePicker.getValue();
+        LocalDate to = toDatePicker.getValue();
         
-        filteredData.setPredicate(visit -> {
-            if (search.isEmpty()) return true;
-            
-            return (visit.getChildName() != null && visit.getChildName().toLowerCase().contains(search)) ||
-                   (visit.getVisitDate() != null && visit.getVisitDate().toLowerCase().contains(search)) ||
-                   (visit.getNotes() != null && visit.getNotes().toLowerCase().contains(search));
-        });
-        
-        int totalItems = filteredData.size();
-        int pageCount = (totalItems / ROWS_PER_PAGE) + (totalItems % ROWS_PER_PAGE > 0 ? 1 : 0);
-        pagination.setPageCount(Math.max(1, pageCount));
-        pagination.setCurrentPageIndex(0);
-        updateTable(0);
-        resultsLabel.setText("Showing " + totalItems + " results");
-    }
-    
-    private javafx.scene.Node createPage(int pageIndex) {
-        updateTable(pageIndex);
-        return new javafx.scene.layout.VBox();
+        // Notes/name matching and the date range run in one indexed query; the full list is paged by keyset
+        if (search.isEmpty() && from == null && to == null) {
+            pager.setSource(new PagedTableModel.Source<>() {
+                @Override
+                public int count() {
+                    return visitDAO.getCount();
+                }
+                
+                @Override
+                public List<VisitModel> fetch(VisitModel after, int skip, int limit) {
+                    return visitDAO.getPageAfter(after, skip, limit);
+                }
+            });
+        } else {
+            pager.setSource(PagedTableModel.ofQuery(() -> visitDAO.search(search, from, to, VisitDAO.DEFAULT_SEARCH_LIMIT)));
+        }
     }
     
-    private void updateTable(int pageIndex) {
-        int fromIndex = pageIndex * ROWS_PER_PAGE;
-        int toIndex = Math.min(fromIndex + ROWS_PER_PAGE, filteredData.size());
-        if (fromIndex > toIndex) fromIndex = toIndex;
-        ObservableList<VisitModel> pageItems = FXCollections.observableArrayList();
-        for (int i = fromIndex; i < toIndex; i++) {
-            pageItems.add(filteredData.get(i));
+    // Bold the terms the search matched in a notes snippet
+    private TextFlow highlightedText(String snippet) {
+        TextFlow flow = new TextFlow();
+        boolean highlighted = false;
+        for (String part : snippet.split("[" + VisitDAO.HIGHLIGHT_START + VisitDAO.HIGHLIGHT_END + "]", -1)) {
+            Text text = new Text(part);
+            if (highlighted) {
+                text.setFont(Font.font(text.getFont().getFamily(), FontWeight.BOLD, text.getFont().getSize()));
+                text.setStyle("-fx-fill: #e67e22;");
+            }
+            flow.getChildren().add(text);
+            highlighted = !highlighted;
         }
-        visitsTable.setItems(pageItems);
+        return flow;
     }
     
     @FXML
@@ -197,16 +225,14 @@ public class VisitsController {
         
         Optional<ButtonType> result = confirmDialog.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.YES) {
-            visitDAO.deleteVisit(visit.getVisitId());
-            refreshTable();
-            showSuccessAlert("Success", "Visit record deleted successfully!");
+            FxFutures.onFx(asyncVisitDAO.run(dao -> dao.deleteVisit(visit.getVisitId())), done -> {
+                refreshTable();
+                showSuccessAlert("Success", "Visit record deleted successfully!");
+            });
         }
     }
     
     public void refreshTable() {
-        visitDAO = new VisitDAO();
-        masterData.clear();
-        masterData.addAll(visitDAO.getObservableVisits());
         updateFilter();
     }
     
@@ -218,6 +244,54 @@ public class VisitsController {
         alert.showAndWait();
     }
     
+    @FXML
+    private void handleImportCsv() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Visits from CSV");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        
+        File file = fileChooser.showOpenDialog(visitsTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        
+        File rejectedFile = ImportService.defaultRejectedFile(file);
+        Task<ImportService.ImportResult> importTask = new Task<>() {
+            @Override
+            protected ImportService.ImportResult call() throws Exception {
+                return new ImportService().importCsv(file, rejectedFile, progress ->
+                    updateMessage("Importing... " + progress.getImported() + " imported, " + progress.getRejected() + " rejected"));
+            }
+        };
+        
+        importCsvButton.setDisable(true);
+        resultsLabel.textProperty().bind(importTask.messageProperty());
+        
+        importTask.setOnSucceeded(event -> {
+            resultsLabel.textProperty().unbind();
+            importCsvButton.setDisable(false);
+            refreshTable();
+            ImportService.ImportResult result = importTask.getValue();
+            String message = result.getImported() + " of " + result.getRowsRead() + " rows imported.";
+            if (result.getRejected() > 0) {
+                message += "\n" + result.getRejected() + " rejected rows were written to " + rejectedFile.getName() + ".";
+            }
+            showSuccessAlert("Import Finished", message);
+        });
+        
+        importTask.setOnFailed(event -> {
+            resultsLabel.textProperty().unbind();
+            importCsvButton.setDisable(false);
+            refreshTable();
+            importTask.getException().printStackTrace();
+            showErrorAlert("Import Failed", "Failed to import data: " + importTask.getException().getMessage());
+        });
+        
+        Thread importThread = new Thread(importTask, "nutrimap-import");
+        importThread.setDaemon(true);
+        importThread.start();
+    }
+    
     @FXML
     private void handleExportCsv() {
         FileChooser fileChooser = new FileChooser();
@@ -227,13 +301,15 @@ public class VisitsController {
         
         File file = fileChooser.showSaveDialog(visitsTable.getScene().getWindow());
         if (file != null) {
-            try {
-                ExportService.exportVisitsToCsv(visitDAO.getAll(), file);
-                showSuccessAlert("Export Successful", "Visits data exported to CSV successfully!");
-            } catch (IOException e) {
+            FxFutures.onFx(AsyncDAO.callAsync(() -> {
+                try (Stream<VisitModel> visits = visitDAO.streamVisits(null, null)) {
+                    ExportService.exportVisitsToCsv(visits::iterator, file);
+                }
+                return null;
+            }), done -> showSuccessAlert("Export Successful", "Visits data exported to CSV successfully!"), e -> {
                 e.printStackTrace();
                 showErrorAlert("Export Failed", "Failed to export data: " + e.getMessage());
-            }
+            });
         }
     }
     
@@ -246,13 +322,15 @@ public class VisitsController {
         
         File file = fileChooser.showSaveDialog(visitsTable.getScene().getWindow());
         if (file != null) {
-            try {
-                ExportService.exportVisitsToPdf(visitDAO.getAll(), file);
-                showSuccessAlert("Export Successful", "Visits report exported to PDF successfully!");
-            } catch (Exception e) {
+            FxFutures.onFx(AsyncDAO.callAsync(() -> {
+                try (Stream<VisitModel> visits = visitDAO.streamVisits(null, null)) {
+                    ExportService.exportVisitsToPdf(visits::iterator, file);
+                }
+                return null;
+            }), done -> showSuccessAlert("Export Successful", "Visits report exported to PDF successfully!"), e -> {
                 e.printStackTrace();
                 showErrorAlert("Export Failed", "Failed to export PDF: " + e.getMessage());
-            }
+            });
         }
     }
     
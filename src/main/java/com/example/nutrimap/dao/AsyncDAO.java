@@ -0,0 +1,86 @@
+package com.example.nutrimap.dao;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs calls on a DAO off the JavaFX Application Thread, one virtual thread per call.
+ *
+ * Virtual threads are cheap to block, so a call simply waits for a pooled reader or for
+ * the writer thread (see DatabaseManager) without tying up a platform thread. Cancelling a
+ * returned future interrupts its thread: a call still waiting for a read connection gives
+ * up, and a write that has already been handed to the writer thread still commits but its
+ * result is dropped. Use FxFutures to get results back onto the FX thread.
+ *
+ * <pre>
+ * AsyncDAO&lt;ChildDAO&gt; children = AsyncDAO.of(new ChildDAO());
+ * FxFutures.onFx(children.supply(dao -&gt; dao.search(text)), this::showResults);
+ * </pre>
+ */
+public final class AsyncDAO<D> {
+    private static final ExecutorService EXECUTOR =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("nutrimap-dao-", 0).factory());
+
+    private final D dao;
+
+    private AsyncDAO(D dao) {
+        this.dao = dao;
+    }
+
+    public static <D> AsyncDAO<D> of(D dao) {
+        return new AsyncDAO<>(dao);
+    }
+
+    /**
+     * Call a DAO method and complete with its result.
+     */
+    public <T> CompletableFuture<T> supply(Function<D, T> call) {
+        return callAsync(() -> call.apply(dao));
+    }
+
+    /**
+     * Call a DAO method that returns nothing.
+     */
+    public CompletableFuture<Void> run(Consumer<D> call) {
+        return callAsync(() -> {
+            call.accept(dao);
+            return null;
+        });
+    }
+
+    /**
+     * Run any blocking work (several DAO calls, a DAO constructor, a file export) on a
+     * virtual thread. A checked exception completes the future exceptionally as-is.
+     */
+    public static <T> CompletableFuture<T> callAsync(Callable<T> work) {
+        Call<T> call = new Call<>();
+        call.task = EXECUTOR.submit(() -> {
+            try {
+                call.complete(work.call());
+            } catch (Throwable t) {
+                call.completeExceptionally(t);
+            }
+        });
+        return call;
+    }
+
+    // A future whose cancel(...) also interrupts the thread running it
+    private static final class Call<T> extends CompletableFuture<T> {
+        private volatile Future<?> task;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            Future<?> running = task;
+            if (cancelled && running != null) {
+                running.cancel(true);
+            }
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.nutrimap.dao;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DAO SQL constant that sorts through a temp B-tree on purpose: an index (e.g. an
+ * FTS5 MATCH) has already narrowed the rows and a trailing LIMIT keeps only the top ones, so
+ * QueryPlanCheckerTest does not report the sort.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface BoundedSort {
+}
@@ -1,6 +1,8 @@
 package com.example.nutrimap.dao;
 
 import com.example.nutrimap.model.ChildModel;
+import com.example.nutrimap.model.ChildSummary;
+import com.example.nutrimap.util.EpochDays;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
@@ -8,52 +10,210 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class ChildDAO {
     private final DatabaseManager dbManager;
     private final ObservableList<ChildModel> childList = FXCollections.observableArrayList();
 
+    // Child columns plus the latest-visit levels maintained in child_status
+    private static final String SELECT_CHILD = "SELECT c.*, s.nutrition_level, s.risk_level FROM children c " +
+            "LEFT JOIN child_status s ON s.child_id = c.id ";
+
+    @FullScan
+    static final String SELECT_ALL_SQL = SELECT_CHILD + "ORDER BY c.id";
+
+    static final String SELECT_BY_ID_SQL = SELECT_CHILD + "WHERE c.id = ?";
+
+    // ChildSummary projection; columns are read by position in mapSummary
+    private static final String SELECT_SUMMARY = "SELECT c.id, c.full_name, c.gender, c.date_of_birth, c.district, " +
+            "s.risk_level FROM children c LEFT JOIN child_status s ON s.child_id = c.id ";
+
+    @FullScan
+    static final String SELECT_SUMMARIES_SQL = SELECT_SUMMARY + "ORDER BY c.id";
+
+    static final String SELECT_SUMMARY_BY_ID_SQL = SELECT_SUMMARY + "WHERE c.id = ?";
+
+    // Keyset page after the last id of an earlier page. Skipped rows are stepped over in the
+    // narrow idx_children_id (schema migration 10) to find the first id, never joined or read.
+    static final String SELECT_PAGE_SQL = SELECT_CHILD + "WHERE c.id >= " +
+            "(SELECT id FROM children WHERE id > ? ORDER BY id LIMIT 1 OFFSET ?) ORDER BY c.id LIMIT ?";
+
+    // Maintained by triggers (schema migration 7)
+    static final String COUNT_SQL = "SELECT total FROM table_counts WHERE name = 'children'";
+
+    static final String SELECT_BY_BRANCH_SQL = SELECT_CHILD + "WHERE c.branch_id = ? ORDER BY c.id";
+
+    // Ranked full-text match; the children_fts rank is bm25 weighted towards names (schema migration 5)
+    static final String SEARCH_SQL = "SELECT c.*, s.nutrition_level, s.risk_level FROM children_fts " +
+            "CROSS JOIN children c ON c.id = children_fts.rowid " +
+            "LEFT JOIN child_status s ON s.child_id = c.id " +
+            "WHERE children_fts MATCH ? ORDER BY children_fts.rank LIMIT ?";
+
+    // Most relevant matches returned by search(String)
+    public static final int DEFAULT_SEARCH_LIMIT = 1000;
+
+    static final String INSERT_SQL = "INSERT INTO children (full_name, fathers_name, mothers_name, contact_number, division, district, upazilla, union_name, branch_id, branch_name, last_visit, gender, date_of_birth, birth_day, last_visit_day) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    static final String UPDATE_SQL = "UPDATE children SET full_name = ?, fathers_name = ?, mothers_name = ?, contact_number = ?, division = ?, district = ?, upazilla = ?, union_name = ?, branch_id = ?, branch_name = ?, last_visit = ?, gender = ?, date_of_birth = ?, birth_day = ?, last_visit_day = ? WHERE id = ?";
+
+    static final String DELETE_SQL = "DELETE FROM children WHERE id = ?";
+
+    private boolean childListLoaded;
+
     public ChildDAO() {
         this.dbManager = DatabaseManager.getInstance();
-        loadChildren();
     }
 
     private void loadChildren() {
         childList.setAll(getAll());
+        childListLoaded = true;
     }
 
     public List<ChildModel> getAll() {
         List<ChildModel> children = new ArrayList<>();
-        String sql = "SELECT * FROM children ORDER BY id";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                children.add(mapResultSetToChild(rs));
-            }
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_ALL_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        children.add(mapResultSetToChild(rs));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return children;
     }
 
+    /**
+     * Every child in id order, read from a live cursor one row at a time. Must be closed;
+     * see DatabaseManager.stream.
+     */
+    public Stream<ChildModel> streamChildren() {
+        try {
+            return dbManager.stream(SELECT_ALL_SQL, this::mapResultSetToChild);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Pass every child in id order to action without holding them all in memory.
+     */
+    public void forEachChild(Consumer<? super ChildModel> action) {
+        try (Stream<ChildModel> children = streamChildren()) {
+            children.forEach(action);
+        }
+    }
+
+    /**
+     * Id, name, sex, birth date, district and risk of every child in id order, for pickers.
+     */
+    public List<ChildSummary> getSummaries() {
+        List<ChildSummary> children = new ArrayList<>();
+        forEachSummary(children::add);
+        return children;
+    }
+
+    /**
+     * Pass the summary of every child in id order to action, read from a live cursor.
+     */
+    public void forEachSummary(Consumer<? super ChildSummary> action) {
+        try (Stream<ChildSummary> children = dbManager.stream(SELECT_SUMMARIES_SQL, ChildDAO::mapSummary)) {
+            children.forEach(action);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public ChildSummary getSummaryById(int id) {
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_SUMMARY_BY_ID_SQL);
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapSummary(rs) : null;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * All children as an observable list, loaded on first use. Table views should page
+     * with {@link #getPageAfter} instead.
+     */
     public ObservableList<ChildModel> getObservableChildren() {
+        if (!childListLoaded) {
+            loadChildren();
+        }
         return childList;
     }
 
+    /**
+     * One page of children in id order.
+     *
+     * @param after last child of the previous page, or null to start from the first child
+     * @param skip rows to skip after it, for jumping over pages that were never loaded
+     */
+    public List<ChildModel> getPageAfter(ChildModel after, int skip, int limit) {
+        List<ChildModel> children = new ArrayList<>();
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_PAGE_SQL);
+                pstmt.setInt(1, after != null ? after.getId() : 0);
+                pstmt.setInt(2, skip);
+                pstmt.setInt(3, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        children.add(mapResultSetToChild(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return children;
+    }
+
+    /**
+     * Number of children.
+     */
+    public int getCount() {
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(COUNT_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
     public ChildModel getById(int id) {
-        String sql = "SELECT * FROM children WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToChild(rs);
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_BY_ID_SQL);
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToChild(rs) : null;
                 }
-            }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -62,15 +222,18 @@ public class ChildDAO {
 
     public List<ChildModel> getByBranchId(String branchId) {
         List<ChildModel> children = new ArrayList<>();
-        String sql = "SELECT * FROM children WHERE branch_id = ? ORDER BY id";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, branchId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    children.add(mapResultSetToChild(rs));
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_BY_BRANCH_SQL);
+                pstmt.setString(1, branchId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        children.add(mapResultSetToChild(rs));
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -78,28 +241,38 @@ public class ChildDAO {
     }
 
     public List<ChildModel> search(String keyword) {
-        if (keyword == null || keyword.isEmpty()) {
+        return search(keyword, DEFAULT_SEARCH_LIMIT);
+    }
+
+    /**
+     * Full-text search over names, parents' names, branch and location fields. Every word
+     * must match the start of a token (so "rah beg" finds "Rahima Begum") and quoted text
+     * must match as a phrase; results are ranked by relevance. A blank keyword returns all
+     * children.
+     */
+    public List<ChildModel> search(String keyword, int limit) {
+        if (keyword == null || keyword.isBlank()) {
             return getAll();
         }
         
         List<ChildModel> children = new ArrayList<>();
-        String sql = "SELECT * FROM children WHERE full_name LIKE ? OR fathers_name LIKE ? OR mothers_name LIKE ? OR branch_name LIKE ? OR division LIKE ? OR district LIKE ? OR upazilla LIKE ? OR union_name LIKE ? ORDER BY id";
-        String pattern = "%" + keyword + "%";
+        String match = FtsQuery.match(keyword);
+        if (match == null) {
+            return children;
+        }
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, pattern);
-            pstmt.setString(2, pattern);
-            pstmt.setString(3, pattern);
-            pstmt.setString(4, pattern);
-            pstmt.setString(5, pattern);
-            pstmt.setString(6, pattern);
-            pstmt.setString(7, pattern);
-            pstmt.setString(8, pattern);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    children.add(mapResultSetToChild(rs));
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SEARCH_SQL);
+                pstmt.setString(1, match);
+                pstmt.setInt(2, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        children.add(mapResultSetToChild(rs));
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -107,64 +280,84 @@ public class ChildDAO {
     }
 
     public void addChild(ChildModel child) {
-        String sql = "INSERT INTO children (full_name, fathers_name, mothers_name, contact_number, division, district, upazilla, union_name, branch_id, branch_name, last_visit, gender, date_of_birth) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, child.getFullName());
-            pstmt.setString(2, child.getFathersName());
-            pstmt.setString(3, child.getMothersName());
-            pstmt.setString(4, child.getContactNumber());
-            pstmt.setString(5, child.getDivision());
-            pstmt.setString(6, child.getDistrict());
-            pstmt.setString(7, child.getUpazilla());
-            pstmt.setString(8, child.getUnionName());
-            pstmt.setString(9, child.getBranchId());
-            pstmt.setString(10, child.getBranchName());
-            pstmt.setString(11, child.getLastVisit());
-            pstmt.setString(12, child.getGender());
-            pstmt.setString(13, child.getDateOfBirth());
-            pstmt.executeUpdate();
-            
-            try (ResultSet keys = pstmt.getGeneratedKeys()) {
-                if (keys.next()) {
-                    child.setId(keys.getInt(1));
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                bindChild(pstmt, child);
+                pstmt.executeUpdate();
+                
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        child.setId(keys.getInt(1));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Insert many children in one transaction using JDBC batches.
+     * Generated ids are set on the models and returned in list order.
+     */
+    public List<Integer> addAll(List<ChildModel> children) {
+        List<Integer> ids = new ArrayList<>(children.size());
+        if (children.isEmpty()) {
+            return ids;
+        }
+
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(INSERT_SQL);
+                for (int start = 0; start < children.size(); start += DatabaseManager.BATCH_SIZE) {
+                    List<ChildModel> chunk = children.subList(start, Math.min(start + DatabaseManager.BATCH_SIZE, children.size()));
+                    for (ChildModel child : chunk) {
+                        bindChild(pstmt, child);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+
+                    // Only the writer connection inserts, so a chunk's AUTOINCREMENT ids are consecutive
+                    int id = (int) conn.lastInsertRowId() - chunk.size() + 1;
+                    for (ChildModel child : chunk) {
+                        child.setId(id);
+                        ids.add(id++);
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            ids.clear();
         }
+        return ids;
     }
 
     public void updateChild(ChildModel child) {
-        String sql = "UPDATE children SET full_name = ?, fathers_name = ?, mothers_name = ?, contact_number = ?, division = ?, district = ?, upazilla = ?, union_name = ?, branch_id = ?, branch_name = ?, last_visit = ?, gender = ?, date_of_birth = ? WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, child.getFullName());
-            pstmt.setString(2, child.getFathersName());
-            pstmt.setString(3, child.getMothersName());
-            pstmt.setString(4, child.getContactNumber());
-            pstmt.setString(5, child.getDivision());
-            pstmt.setString(6, child.getDistrict());
-            pstmt.setString(7, child.getUpazilla());
-            pstmt.setString(8, child.getUnionName());
-            pstmt.setString(9, child.getBranchId());
-            pstmt.setString(10, child.getBranchName());
-            pstmt.setString(11, child.getLastVisit());
-            pstmt.setString(12, child.getGender());
-            pstmt.setString(13, child.getDateOfBirth());
-            pstmt.setInt(14, child.getId());
-            pstmt.executeUpdate();
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(UPDATE_SQL);
+                bindChild(pstmt, child);
+                pstmt.setInt(16, child.getId());
+                int updated = pstmt.executeUpdate();
+                // A changed birth date or gender re-flags the child's status row
+                ChildStatusDAO.evaluatePending(conn);
+                return updated;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public void deleteChild(int id) {
-        String sql = "DELETE FROM children WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(DELETE_SQL);
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate();
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -174,6 +367,37 @@ public class ChildDAO {
         loadChildren();
     }
 
+    // Binds columns 1-15 shared by INSERT_SQL and UPDATE_SQL
+    private void bindChild(PreparedStatement pstmt, ChildModel child) throws SQLException {
+        pstmt.setString(1, child.getFullName());
+        pstmt.setString(2, child.getFathersName());
+        pstmt.setString(3, child.getMothersName());
+        pstmt.setString(4, child.getContactNumber());
+        pstmt.setString(5, child.getDivision());
+        pstmt.setString(6, child.getDistrict());
+        pstmt.setString(7, child.getUpazilla());
+        pstmt.setString(8, child.getUnionName());
+        pstmt.setString(9, child.getBranchId());
+        pstmt.setString(10, child.getBranchName());
+        pstmt.setString(11, child.getLastVisit());
+        pstmt.setString(12, child.getGender());
+        pstmt.setString(13, child.getDateOfBirth());
+        setEpochDay(pstmt, 14, child.getDateOfBirth());
+        setEpochDay(pstmt, 15, child.getLastVisit());
+    }
+
+    /**
+     * Bind the epoch-day companion of a "yyyy-MM-dd" TEXT date, or NULL if it does not parse.
+     */
+    static void setEpochDay(PreparedStatement pstmt, int index, String date) throws SQLException {
+        Integer epochDay = EpochDays.parse(date);
+        if (epochDay != null) {
+            pstmt.setInt(index, epochDay);
+        } else {
+            pstmt.setNull(index, Types.INTEGER);
+        }
+    }
+
     private ChildModel mapResultSetToChild(ResultSet rs) throws SQLException {
         ChildModel child = new ChildModel();
         child.setId(rs.getInt("id"));
@@ -190,6 +414,14 @@ public class ChildDAO {
         child.setLastVisit(rs.getString("last_visit"));
         child.setGender(rs.getString("gender"));
         child.setDateOfBirth(rs.getString("date_of_birth"));
+        child.setNutritionLevel(rs.getString("nutrition_level"));
+        child.setRiskLevel(rs.getString("risk_level"));
         return child;
     }
+
+    // Column order of SELECT_SUMMARY
+    private static ChildSummary mapSummary(ResultSet rs) throws SQLException {
+        return new ChildSummary(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                rs.getString(5), rs.getString(6));
+    }
 }
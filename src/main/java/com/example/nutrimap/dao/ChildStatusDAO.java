@@ -0,0 +1,207 @@
+package com.example.nutrimap.dao;
+
+import com.example.nutrimap.util.EpochDays;
+import com.example.nutrimap.util.NutritionRiskCalculator;
+import com.example.nutrimap.util.RiskLevel;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-child summary of the latest visit, kept in the child_status table.
+ *
+ * Triggers on visits and children (schema migration 4) keep latest_visit_id and
+ * previous_visit_id current and flag the row with needs_evaluation. Every DAO write that
+ * touches visits or a child's birth date/gender then calls {@link #evaluatePending} in the
+ * same transaction, which recomputes the nutrition level, risk level and z-score with
+ * NutritionRiskCalculator. Readers get one row per child instead of scanning all visits.
+ */
+public class ChildStatusDAO {
+    private final DatabaseManager dbManager;
+
+    // Rows evaluated per pass, so a large backlog is not held in memory at once
+    private static final int EVALUATION_BATCH_SIZE = 1000;
+
+    static final String SELECT_PENDING_SQL = "SELECT s.child_id, c.date_of_birth, c.birth_day, c.gender, " +
+            "l.visit_date, l.visit_day, l.height_cm, l.weight_kg, l.muac_mm, " +
+            "p.muac_mm AS prev_muac_mm, p.weight_kg AS prev_weight_kg " +
+            // CROSS JOIN keeps child_status outermost so the pending partial index drives the query
+            "FROM child_status s " +
+            "CROSS JOIN children c ON c.id = s.child_id " +
+            "LEFT JOIN visits l ON l.visit_id = s.latest_visit_id " +
+            "LEFT JOIN visits p ON p.visit_id = s.previous_visit_id " +
+            "WHERE s.needs_evaluation = 1 LIMIT ?";
+
+    static final String UPDATE_EVALUATION_SQL = "UPDATE child_status SET nutrition_level = ?, risk_level = ?, z_score = ?, " +
+            "needs_evaluation = 0 WHERE child_id = ?";
+
+    // Status rows whose child no longer exists can never be evaluated; walks the pending backlog only
+    @FullScan
+    static final String DELETE_ORPHAN_SQL = "DELETE FROM child_status WHERE needs_evaluation = 1 " +
+            "AND child_id NOT IN (SELECT id FROM children)";
+
+    @FullScan
+    static final String SELECT_RISK_LEVELS_SQL = "SELECT child_id, risk_level FROM child_status WHERE latest_visit_id IS NOT NULL";
+
+    @FullScan
+    static final String COUNT_BY_RISK_SQL = "SELECT risk_level, COUNT(*) AS total FROM child_status " +
+            "WHERE latest_visit_id IS NOT NULL GROUP BY risk_level";
+
+    public ChildStatusDAO() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Latest-visit risk level per child id, for children with at least one visit.
+     */
+    public Map<Integer, String> getLatestRiskLevels() {
+        Map<Integer, String> riskLevels = new HashMap<>();
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_RISK_LEVELS_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        riskLevels.put(rs.getInt("child_id"), rs.getString("risk_level"));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return riskLevels;
+    }
+
+    /**
+     * Number of children with a visit per latest-visit risk level, indexed by RiskLevel code.
+     */
+    public int[] getRiskLevelCounts() {
+        int[] counts = new int[RiskLevel.values().length];
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(COUNT_BY_RISK_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        counts[RiskLevel.fromValue(rs.getString("risk_level")).getCode()] += rs.getInt("total");
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return counts;
+    }
+
+    /**
+     * Evaluate every child_status row flagged by the triggers. Must run on the writer
+     * connection, inside the transaction that changed the visits.
+     *
+     * @return number of rows evaluated
+     */
+    static int evaluatePending(PooledConnection conn) throws SQLException {
+        int total = 0;
+        int evaluated;
+        do {
+            evaluated = evaluatePending(conn, EVALUATION_BATCH_SIZE);
+            total += evaluated;
+        } while (evaluated == EVALUATION_BATCH_SIZE);
+        return total;
+    }
+
+    static int evaluatePending(PooledConnection conn, int limit) throws SQLException {
+        List<Evaluation> results = new ArrayList<>();
+        PreparedStatement select = conn.prepare(SELECT_PENDING_SQL);
+        select.setInt(1, limit);
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                results.add(evaluate(rs));
+            }
+        }
+
+        PreparedStatement update = conn.prepare(UPDATE_EVALUATION_SQL);
+        for (Evaluation result : results) {
+            update.setString(1, result.nutritionLevel);
+            update.setString(2, result.riskLevel);
+            if (result.zScore != null) {
+                update.setDouble(3, result.zScore);
+            } else {
+                update.setNull(3, Types.REAL);
+            }
+            update.setInt(4, result.childId);
+            update.addBatch();
+        }
+        if (!results.isEmpty()) {
+            update.executeBatch();
+        }
+
+        if (results.size() < limit) {
+            conn.prepare(DELETE_ORPHAN_SQL).executeUpdate();
+        }
+        return results.size();
+    }
+
+    // Levels are null when the child has no remaining visit
+    private static Evaluation evaluate(ResultSet rs) throws SQLException {
+        int childId = rs.getInt("child_id");
+        String visitDate = rs.getString("visit_date");
+        if (visitDate == null) {
+            return new Evaluation(childId, null, null, null);
+        }
+
+        // Same trend inputs as the profile view: previous MUAC/weight only when measured
+        Double muacPrevMm = null;
+        Double weightPrevKg = null;
+        int prevMuac = rs.getInt("prev_muac_mm");
+        if (!rs.wasNull() && prevMuac > 0) {
+            muacPrevMm = (double) prevMuac;
+        }
+        double prevWeight = rs.getDouble("prev_weight_kg");
+        if (!rs.wasNull() && prevWeight > 0) {
+            weightPrevKg = prevWeight;
+        }
+
+        // Age from the stored epoch days; the text dates are only parsed if a day column is empty
+        NutritionRiskCalculator.NutritionRiskResult result = NutritionRiskCalculator.evaluateFromVisitData(
+            epochDay(rs, "birth_day", "date_of_birth"),
+            epochDay(rs, "visit_day", "visit_date"),
+            rs.getString("gender"),
+            rs.getDouble("height_cm"),
+            rs.getDouble("weight_kg"),
+            rs.getInt("muac_mm"),
+            muacPrevMm,
+            weightPrevKg
+        );
+        return new Evaluation(childId, result.getNutritionLevel(), result.getRiskLevel(),
+            result.hasValidZScore() ? result.getZScore() : null);
+    }
+
+    private static int epochDay(ResultSet rs, String dayColumn, String dateColumn) throws SQLException {
+        int day = rs.getInt(dayColumn);
+        if (!rs.wasNull()) {
+            return day;
+        }
+        Integer parsed = EpochDays.parse(rs.getString(dateColumn));
+        return parsed != null ? parsed : EpochDays.NO_DAY;
+    }
+
+    private static class Evaluation {
+        final int childId;
+        final String nutritionLevel;
+        final String riskLevel;
+        final Double zScore;
+
+        Evaluation(int childId, String nutritionLevel, String riskLevel, Double zScore) {
+            this.childId = childId;
+            this.nutritionLevel = nutritionLevel;
+            this.riskLevel = riskLevel;
+            this.zScore = zScore;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.nutrimap.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a live result set that maps one row per advance. Owns its statement
+ * and runs onClose, which returns a borrowed read connection to the pool, either when the
+ * rows run out or when the stream is closed early.
+ */
+final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+    private final PreparedStatement pstmt;
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+    private final Runnable onClose;
+    private boolean closed;
+
+    Cursor(PreparedStatement pstmt, ResultSet rs, RowMapper<T> mapper, Runnable onClose) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        this.pstmt = pstmt;
+        this.rs = rs;
+        this.mapper = mapper;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (closed) {
+            return false;
+        }
+        T row;
+        try {
+            if (!rs.next()) {
+                close();
+                return false;
+            }
+            row = mapper.map(rs);
+        } catch (SQLException e) {
+            // Same as the list-returning DAO methods: log and end with the rows read so far
+            e.printStackTrace();
+            close();
+            return false;
+        }
+        action.accept(row);
+        return true;
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // Closing the result set first lets QueryMetrics record the query
+            rs.close();
+            pstmt.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            onClose.run();
+        }
+    }
+}
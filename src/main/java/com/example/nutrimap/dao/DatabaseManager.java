@@ -3,26 +3,74 @@ package com.example.nutrimap.dao;
 import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Database manager for SQLite.
  * Only manages users, children, and visits tables.
  * Location data (divisions, districts, upazilas, unions, branches) is fetched from GitHub.
+ *
+ * The database runs in WAL mode so readers never block the writer and vice versa.
+ * Queries borrow one of a small pool of read-only connections via {@link #read(SqlFunction)};
+ * all writes are serialized on a single writer connection owned by a dedicated executor
+ * thread via {@link #write(SqlFunction)}, each call running in its own transaction.
+ * Queries over whole tables can be consumed row by row through {@link #stream}.
  */
 public class DatabaseManager {
     private static final String DB_NAME = "nutrimap.db";
     private static final String DB_PATH;
+    private static final String DB_URL;
+    private static final int READ_POOL_SIZE = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int BUSY_TIMEOUT_MS = 5000;
+    // Rows per executeBatch call for bulk inserts
+    static final int BATCH_SIZE = 500;
+    // Rows per fetch for streamed cursors; SQLite steps rows lazily anyway, so this stays small
+    static final int STREAM_FETCH_SIZE = 256;
     private static DatabaseManager instance;
-    private Connection connection;
+
+    private PooledConnection writeConnection;
+    private final List<PooledConnection> readers = new ArrayList<>();
+    private final BlockingQueue<PooledConnection> readPool = new ArrayBlockingQueue<>(READ_POOL_SIZE);
+    private final ExecutorService writeExecutor;
+    private volatile Thread writerThread;
+
+    // Reader currently borrowed by this thread, so nested reads reuse it instead of draining the pool
+    private final ThreadLocal<PooledConnection> heldReader = new ThreadLocal<>();
 
     static {
-        String userDir = System.getProperty("user.dir");
-        DB_PATH = userDir + File.separator + DB_NAME;
+        // -Dnutrimap.db=<file> points the app (or a test such as QueryPlanCheckerTest) at another database
+        String override = System.getProperty("nutrimap.db");
+        if (override != null && !override.isBlank()) {
+            DB_PATH = override;
+        } else {
+            String userDir = System.getProperty("user.dir");
+            DB_PATH = userDir + File.separator + DB_NAME;
+        }
+        DB_URL = "jdbc:sqlite:" + DB_PATH;
     }
 
     private DatabaseManager() {
+        writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nutrimap-db-writer");
+            thread.setDaemon(true);
+            writerThread = thread;
+            return thread;
+        });
         initializeDatabase();
     }
 
@@ -33,20 +81,222 @@ public class DatabaseManager {
         return instance;
     }
 
+    static String getDatabasePath() {
+        return DB_PATH;
+    }
+
     private void initializeDatabase() {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection("jdbc:sqlite:" + DB_PATH);
-            createTables();
+            writeExecutor.submit(() -> {
+                writeConnection = openWriteConnection();
+                return null;
+            }).get();
+            write(conn -> {
+                createTables(conn);
+                return null;
+            });
+            for (int i = 0; i < READ_POOL_SIZE; i++) {
+                PooledConnection reader = openReadConnection();
+                readers.add(reader);
+                readPool.add(reader);
+            }
             seedDefaultUsers();
-            System.out.println("Database initialized at: " + DB_PATH);
-        } catch (ClassNotFoundException | SQLException e) {
+            new SchemaMigrator(this).migrate();
+            System.out.println("Database initialized at: " + DB_PATH + " (WAL, " + READ_POOL_SIZE + " readers)");
+        } catch (ClassNotFoundException | SQLException | ExecutionException e) {
             e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private PooledConnection openWriteConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+        }
+        return new PooledConnection(conn);
+    }
+
+    private PooledConnection openReadConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(DB_URL);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MS);
+            stmt.execute("PRAGMA query_only = ON");
+        }
+        return new PooledConnection(conn);
+    }
+
+    /**
+     * Run a query on a pooled read-only connection.
+     * Called from the writer thread, the work runs on the writer connection so it sees
+     * the transaction's own uncommitted changes.
+     */
+    public <T> T read(SqlFunction<T> work) throws SQLException {
+        if (Thread.currentThread() == writerThread) {
+            return work.apply(writeConnection);
+        }
+        PooledConnection held = heldReader.get();
+        if (held != null) {
+            return work.apply(held);
+        }
+        PooledConnection conn = borrowReader();
+        heldReader.set(conn);
+        try {
+            return work.apply(conn);
+        } finally {
+            heldReader.remove();
+            readPool.offer(conn);
+        }
+    }
+
+    /**
+     * Stream the rows of a query from a live cursor, so memory use does not depend on the
+     * number of rows. The stream holds a pooled reader, and with it one read snapshot, until
+     * it is exhausted or closed; always close it (try-with-resources), especially when it
+     * may stop early (findFirst, limit, an exception in the pipeline).
+     * Called inside read() or write(), it uses that call's connection instead (so inside a
+     * write it sees the uncommitted changes), and must be consumed before that call returns.
+     *
+     * @param params values bound to the statement's parameters, in order
+     */
+    public <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        PooledConnection held = Thread.currentThread() == writerThread ? writeConnection : heldReader.get();
+        PooledConnection conn = held != null ? held : borrowReader();
+        // Only a reader borrowed here goes back to the pool; a held connection belongs to its caller
+        Runnable release = held != null ? () -> { } : () -> readPool.offer(conn);
+        PreparedStatement pstmt = null;
+        try {
+            // Not from the statement cache: the cursor may stay open while the same
+            // query runs again on this connection
+            pstmt = QueryMetrics.getInstance().instrument(conn.getConnection().prepareStatement(sql), sql);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setObject(i + 1, params[i]);
+            }
+            Cursor<T> cursor = new Cursor<>(pstmt, pstmt.executeQuery(), mapper, release);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException | RuntimeException e) {
+            if (pstmt != null) {
+                pstmt.close();
+            }
+            release.run();
+            throw e;
         }
     }
 
-    private void createTables() throws SQLException {
-        try (Statement stmt = connection.createStatement()) {
+    private PooledConnection borrowReader() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            PooledConnection conn = readPool.poll(BUSY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            QueryMetrics.getInstance().recordWait(QueryMetrics.READER_WAIT, System.nanoTime() - start);
+            if (conn == null) {
+                throw new SQLException("Timed out waiting for a read connection");
+            }
+            return conn;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a read connection", e);
+        }
+    }
+
+    /**
+     * Run a write on the single writer connection, inside one transaction.
+     * The calling thread blocks until the work has been committed or rolled back.
+     * Nested calls made from within a write join the enclosing transaction.
+     */
+    public <T> T write(SqlFunction<T> work) throws SQLException {
+        if (Thread.currentThread() == writerThread) {
+            return work.apply(writeConnection);
+        }
+        return onWriter(() -> inTransaction(work));
+    }
+
+    /**
+     * Whether the caller is the writer thread, i.e. running inside a write.
+     */
+    boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+
+    /**
+     * Run work on the writer connection in autocommit mode, for statements SQLite refuses
+     * inside a transaction (VACUUM, wal_checkpoint, changing auto_vacuum). Must not be
+     * called from within a write.
+     */
+    public <T> T writeAutoCommit(SqlFunction<T> work) throws SQLException {
+        if (Thread.currentThread() == writerThread) {
+            throw new SQLException("writeAutoCommit called inside a write transaction");
+        }
+        return onWriter(() -> work.apply(writeConnection));
+    }
+
+    private <T> T onWriter(Callable<T> task) throws SQLException {
+        long queued = System.nanoTime();
+        Future<T> future = writeExecutor.submit(() -> {
+            QueryMetrics.getInstance().recordWait(QueryMetrics.WRITER_WAIT, System.nanoTime() - queued);
+            return task.call();
+        });
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    private <T> T inTransaction(SqlFunction<T> work) throws SQLException {
+        Connection conn = writeConnection.getConnection();
+        long start = System.nanoTime();
+        boolean committed = false;
+        conn.setAutoCommit(false);
+        try {
+            T result = work.apply(writeConnection);
+            conn.commit();
+            committed = true;
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+            QueryMetrics.getInstance().recordTransaction(System.nanoTime() - start, committed);
+        }
+    }
+
+    /**
+     * Prepared statement cache hits summed over the writer and all pooled readers.
+     */
+    public long getStatementCacheHits() {
+        long hits = writeConnection != null ? writeConnection.getCacheHits() : 0;
+        for (PooledConnection reader : readers) {
+            hits += reader.getCacheHits();
+        }
+        return hits;
+    }
+
+    /**
+     * Prepared statement cache misses summed over the writer and all pooled readers.
+     */
+    public long getStatementCacheMisses() {
+        long misses = writeConnection != null ? writeConnection.getCacheMisses() : 0;
+        for (PooledConnection reader : readers) {
+            misses += reader.getCacheMisses();
+        }
+        return misses;
+    }
+
+    private void createTables(PooledConnection conn) throws SQLException {
+        try (Statement stmt = conn.getConnection().createStatement()) {
             // Users table
             stmt.execute(
                 "CREATE TABLE IF NOT EXISTS users (" +
@@ -101,7 +351,6 @@ public class DatabaseManager {
             // Indexes
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_email ON users(email)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_children_branch ON children(branch_id)");
-            stmt.execute("CREATE INDEX IF NOT EXISTS idx_visits_child ON visits(child_id)");
         }
     }
     
@@ -110,7 +359,22 @@ public class DatabaseManager {
             return; // Users already exist
         }
         
-        try (Statement stmt = connection.createStatement()) {
+        try {
+            write(conn -> {
+                seedDefaultUsers(conn);
+                return null;
+            });
+            System.out.println("Default users created successfully.");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        
+        // Seed sample data after creating users
+        seedSampleData();
+    }
+    
+    private void seedDefaultUsers(PooledConnection conn) throws SQLException {
+        try (Statement stmt = conn.getConnection().createStatement()) {
             // Admin user
             stmt.execute(
                 "INSERT INTO users (name, email, password, role) VALUES " +
@@ -128,14 +392,7 @@ public class DatabaseManager {
                 "INSERT INTO users (name, email, password, role) VALUES " +
                 "('Field Worker', 'worker@gmail.com', 'w1234', 'FIELD_WORKER')"
             );
-            
-            System.out.println("Default users created successfully.");
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        
-        // Seed sample data after creating users
-        seedSampleData();
     }
     
     private void seedSampleData() {
@@ -143,7 +400,19 @@ public class DatabaseManager {
             return; // Sample data already exists
         }
         
-        try (Statement stmt = connection.createStatement()) {
+        try {
+            write(conn -> {
+                seedSampleData(conn);
+                return null;
+            });
+            System.out.println("Sample children and visits data created successfully.");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    private void seedSampleData(PooledConnection conn) throws SQLException {
+        try (Statement stmt = conn.getConnection().createStatement()) {
             // Sample children
             stmt.execute(
                 "INSERT INTO children (full_name, fathers_name, mothers_name, contact_number, division, district, upazilla, union_name, branch_name, gender, date_of_birth, last_visit) VALUES " +
@@ -195,43 +464,50 @@ public class DatabaseManager {
                 "INSERT INTO visits (child_id, visit_date, weight_kg, height_cm, muac_mm, risk_level, notes, created_at) VALUES " +
                 "(2, '2025-10-28', 9.8, 76.0, 115, 'MEDIUM', 'Moderate underweight', '2025-10-28 11:00:00')"
             );
-            
-            System.out.println("Sample children and visits data created successfully.");
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
     }
 
-    public Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                connection = DriverManager.getConnection("jdbc:sqlite:" + DB_PATH);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return connection;
-    }
-
     public boolean isTableEmpty(String tableName) {
-        try (Statement stmt = getConnection().createStatement()) {
-            var rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName);
-            if (rs.next()) {
-                return rs.getInt(1) == 0;
-            }
+        try {
+            return read(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+                    return !rs.next() || rs.getInt(1) == 0;
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return true;
     }
 
+    /**
+     * Commit journaled visits, close the reader pool, drain pending writes and close the
+     * writer connection.
+     */
     public void closeConnection() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
+        VisitJournal.shutdown();
+        PooledConnection reader;
+        while ((reader = readPool.poll()) != null) {
+            try {
+                reader.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
             }
-        } catch (SQLException e) {
+        }
+        try {
+            writeExecutor.submit(() -> {
+                if (writeConnection != null) {
+                    writeConnection.close();
+                    writeConnection = null;
+                }
+                return null;
+            }).get();
+        } catch (ExecutionException e) {
             e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        writeExecutor.shutdown();
     }
 }
@@ -0,0 +1,59 @@
+package com.example.nutrimap.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns search box input into an FTS5 MATCH expression.
+ *
+ * Text in double quotes becomes an exact phrase; every other whitespace-separated word
+ * becomes a quoted prefix term ("word"*). All terms are required. Any other FTS5 query
+ * syntax typed by the user (AND/OR/NOT, column filters, parentheses) is treated as plain
+ * text, so the input can never raise a syntax error.
+ */
+final class FtsQuery {
+
+    private FtsQuery() {
+    }
+
+    /**
+     * @return MATCH expression, or null when the input has no letters or digits to search for
+     */
+    static String match(String input) {
+        if (input == null) {
+            return null;
+        }
+        List<String> terms = new ArrayList<>();
+        // Odd parts are inside quotes; an unclosed quote runs to the end of the input
+        String[] parts = input.split("\"", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i % 2 == 1) {
+                addTerm(terms, parts[i].trim(), "");
+            } else {
+                for (String word : parts[i].trim().split("\\s+")) {
+                    addTerm(terms, word, "*");
+                }
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    private static void addTerm(List<String> terms, String text, String suffix) {
+        if (hasLetterOrDigit(text)) {
+            terms.add(quote(text) + suffix);
+        }
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\"", "\"\"") + "\"";
+    }
+
+    private static boolean hasLetterOrDigit(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
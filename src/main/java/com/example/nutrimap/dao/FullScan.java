@@ -0,0 +1,16 @@
+package com.example.nutrimap.dao;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a DAO SQL constant whose scan is intentional (e.g. listing or counting every row, a
+ * LIKE search, or walking a partial index that only holds a small backlog), so
+ * QueryPlanCheckerTest does not report it as a missing index.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FullScan {
+}
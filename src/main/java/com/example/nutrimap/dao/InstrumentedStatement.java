@@ -0,0 +1,151 @@
+package com.example.nutrimap.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.Arrays;
+
+/**
+ * Proxy handler timing a prepared statement for QueryMetrics. Remembers the parameters set
+ * since the last clearParameters, times executeUpdate/executeBatch directly and wraps the
+ * result set of executeQuery so a query is recorded when that result set is closed, together
+ * with the number of rows read. Everything else is passed straight through.
+ */
+final class InstrumentedStatement implements InvocationHandler {
+    private final QueryMetrics metrics;
+    private final Object target;
+    private final String name;
+    private final String sql;
+    private Object[] params = new Object[0];
+
+    InstrumentedStatement(QueryMetrics metrics, Object target, String name, String sql) {
+        this.metrics = metrics;
+        this.target = target;
+        this.name = name;
+        this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        if (methodName.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            remember((Integer) args[0], methodName.equals("setNull") ? null : args[1]);
+        } else if (methodName.equals("clearParameters")) {
+            Arrays.fill(params, null);
+        } else if (methodName.equals("equals")) {
+            return proxy == args[0];
+        } else if (methodName.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+
+        boolean timed = args == null && (methodName.equals("executeQuery") || methodName.equals("executeUpdate")
+                || methodName.equals("executeBatch") || methodName.equals("execute"));
+        if (!timed) {
+            return call(method, target, args);
+        }
+
+        long start = System.nanoTime();
+        Object result = callTimed(method, args);
+        if (result instanceof ResultSet) {
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+                    new Rows((ResultSet) result, start, params.clone()));
+        }
+        metrics.record(name, sql, System.nanoTime() - start, updateCount(result), params);
+        return result;
+    }
+
+    private Object callTimed(Method method, Object[] args) throws Throwable {
+        try {
+            return call(method, target, args);
+        } catch (Throwable e) {
+            metrics.recordError(name);
+            throw e;
+        }
+    }
+
+    private void remember(int index, Object value) {
+        if (index > params.length) {
+            params = Arrays.copyOf(params, index);
+        }
+        if (index > 0) {
+            params[index - 1] = value;
+        }
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Integer) {
+            return (Integer) result;
+        }
+        if (result instanceof int[]) {
+            long total = 0;
+            for (int count : (int[]) result) {
+                if (count > 0) {
+                    total += count;
+                }
+            }
+            return total;
+        }
+        return 0;
+    }
+
+    private static Object call(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Counts rows as they are stepped and records the query on close, or on the first
+     * failing step.
+     */
+    private final class Rows implements InvocationHandler {
+        private final ResultSet rs;
+        private final long start;
+        private final Object[] boundParams;
+        private long rows;
+        private boolean recorded;
+
+        Rows(ResultSet rs, long start, Object[] boundParams) {
+            this.rs = rs;
+            this.start = start;
+            this.boundParams = boundParams;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    try {
+                        boolean more = rs.next();
+                        if (more) {
+                            rows++;
+                        }
+                        return more;
+                    } catch (Throwable e) {
+                        if (!recorded) {
+                            recorded = true;
+                            metrics.recordError(name);
+                        }
+                        throw e;
+                    }
+                case "close":
+                    if (!recorded) {
+                        recorded = true;
+                        metrics.record(name, sql, System.nanoTime() - start, rows, boundParams);
+                    }
+                    rs.close();
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return call(method, rs, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.nutrimap.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets: four buckets per power of two of
+ * microseconds, so a percentile is accurate to within about 20% from 1 µs up to days.
+ */
+final class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos, long rowCount) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(bucket(micros));
+        count.incrementAndGet();
+        if (rowCount > 0) {
+            rows.addAndGet(rowCount);
+        }
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    long getCount() { return count.get(); }
+
+    long getErrors() { return errors.get(); }
+
+    long getRows() { return rows.get(); }
+
+    long getTotalNanos() { return totalNanos.get(); }
+
+    long getMaxNanos() { return maxNanos.get(); }
+
+    /**
+     * Upper bound, in nanoseconds, of the bucket holding the given quantile (0..1).
+     */
+    long percentileNanos(double quantile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundMicros(i) * 1000, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    // 0-3 µs map to buckets 0-3; above that, SUB_BUCKETS linear steps per power of two
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int log = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (log - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (log - 1) * SUB_BUCKETS + sub);
+    }
+
+    private static long upperBoundMicros(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket + 1;
+        }
+        int log = bucket / SUB_BUCKETS + 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (log - 2));
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.nutrimap.dao;
+
+import com.example.nutrimap.model.DatabaseStats;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Housekeeping for the database file: moves soft-deleted (and, if asked, aged-out) visits
+ * into visits_archive, returns free pages with incremental vacuum, refreshes planner statistics
+ * and reports size and fragmentation. Scheduled by MaintenanceService.
+ *
+ * Every call does a bounded amount of work in its own transaction, so the writer thread is
+ * never held for long and user edits interleave with a long archival run.
+ */
+public class MaintenanceDAO {
+    private final DatabaseManager dbManager;
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    // PRAGMA auto_vacuum value for INCREMENTAL
+    private static final long AUTO_VACUUM_INCREMENTAL = 2;
+
+    private static final String VISIT_COLUMNS = "visit_id, child_id, visit_date, weight_kg, height_cm, muac_mm, " +
+            "risk_level, notes, created_at, updated_at, entered_by, deleted, visit_day";
+
+    static final String SELECT_DELETED_BATCH_SQL = "SELECT visit_id FROM visits WHERE deleted = 1 ORDER BY visit_id LIMIT ?";
+
+    static final String SELECT_AGED_BATCH_SQL = "SELECT visit_id FROM visits WHERE visit_day < ? AND deleted = 0 ORDER BY visit_day LIMIT ?";
+
+    static final String ARCHIVE_VISIT_SQL = "INSERT OR REPLACE INTO visits_archive (" + VISIT_COLUMNS + ", archived_at) " +
+            "SELECT " + VISIT_COLUMNS + ", ? FROM visits WHERE visit_id = ?";
+
+    // Triggers drop the row from visits_fts and table_counts and re-point child_status
+    static final String DELETE_VISIT_SQL = "DELETE FROM visits WHERE visit_id = ?";
+
+    // Walks idx_visits_deleted, which only holds tombstones not yet archived
+    @FullScan
+    static final String COUNT_DELETED_SQL = "SELECT COUNT(*) FROM visits WHERE deleted = 1";
+
+    static final String COUNT_LIVE_SQL = "SELECT total FROM table_counts WHERE name = 'visits'";
+
+    @FullScan
+    static final String COUNT_ARCHIVED_SQL = "SELECT COUNT(*) FROM visits_archive";
+
+    // One row per table and index; reads every page, so only for on-demand stats
+    @FullScan
+    static final String TABLE_SIZES_SQL = "SELECT name, pgsize, unused FROM dbstat WHERE aggregate = TRUE";
+
+    public MaintenanceDAO() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Archive up to limit visits: soft-deleted ones first, then live visits dated before
+     * cutoffDay (an epoch day; Long.MIN_VALUE archives none by age).
+     *
+     * @return number of visits moved; less than limit once nothing is left to archive
+     */
+    public int archiveVisits(long cutoffDay, int limit) {
+        String now = LocalDateTime.now().format(DATETIME_FORMATTER);
+        try {
+            return dbManager.write(conn -> {
+                List<Integer> ids = selectIds(conn, SELECT_DELETED_BATCH_SQL, null, limit);
+                if (ids.size() < limit && cutoffDay != Long.MIN_VALUE) {
+                    ids.addAll(selectIds(conn, SELECT_AGED_BATCH_SQL, cutoffDay, limit - ids.size()));
+                }
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+
+                PreparedStatement archive = conn.prepare(ARCHIVE_VISIT_SQL);
+                PreparedStatement delete = conn.prepare(DELETE_VISIT_SQL);
+                for (int id : ids) {
+                    archive.setString(1, now);
+                    archive.setInt(2, id);
+                    archive.addBatch();
+                    delete.setInt(1, id);
+                    delete.addBatch();
+                }
+                archive.executeBatch();
+                delete.executeBatch();
+                ChildStatusDAO.evaluatePending(conn);
+                return ids.size();
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    private List<Integer> selectIds(PooledConnection conn, String sql, Long cutoffDay, int limit) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        PreparedStatement pstmt = conn.prepare(sql);
+        int index = 1;
+        if (cutoffDay != null) {
+            pstmt.setLong(index++, cutoffDay);
+        }
+        pstmt.setInt(index, limit);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Switch the file to incremental auto-vacuum, which on an existing database takes a full
+     * VACUUM: the whole file is rewritten and the writer is held until it finishes. Does
+     * nothing if the file is already incremental.
+     *
+     * @return true if the VACUUM ran
+     */
+    public boolean enableIncrementalVacuum() {
+        try {
+            return dbManager.writeAutoCommit(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    if (pragma(stmt, "auto_vacuum") == AUTO_VACUUM_INCREMENTAL) {
+                        return false;
+                    }
+                    // The new mode only takes effect through the VACUUM
+                    stmt.execute("PRAGMA auto_vacuum = INCREMENTAL");
+                    stmt.execute("VACUUM");
+                    stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                    return true;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Return up to maxPages free pages to the file system.
+     *
+     * @return number of pages released
+     */
+    public long incrementalVacuum(int maxPages) {
+        try {
+            return dbManager.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    long before = pragma(stmt, "freelist_count");
+                    long target = Math.max(0, before - maxPages);
+                    long free = before;
+                    // The driver may step this zero-column PRAGMA only once, and every step
+                    // releases a single page, so repeat until the free list stops shrinking
+                    while (free > target) {
+                        stmt.execute("PRAGMA incremental_vacuum(" + (free - target) + ")");
+                        long now = pragma(stmt, "freelist_count");
+                        if (now >= free) {
+                            break;
+                        }
+                        free = now;
+                    }
+                    return before - free;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
+    /**
+     * Refresh the planner statistics. analysis_limit bounds the rows sampled per index.
+     */
+    public void analyze() {
+        try {
+            dbManager.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute("PRAGMA analysis_limit = 1000");
+                    stmt.execute("ANALYZE");
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Copy the WAL into the database and truncate it, so vacuumed space leaves the disk.
+     */
+    public void checkpoint() {
+        try {
+            dbManager.writeAutoCommit(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Page counts and free pages only; cheap enough to call before every maintenance pass.
+     */
+    public DatabaseStats getPageStats() {
+        DatabaseStats stats = new DatabaseStats();
+        try {
+            dbManager.read(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stats.setPageSize(pragma(stmt, "page_size"));
+                    stats.setPageCount(pragma(stmt, "page_count"));
+                    stats.setFreelistCount(pragma(stmt, "freelist_count"));
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return stats;
+    }
+
+    /**
+     * Page stats plus visit counts and the size of every table and index.
+     */
+    public DatabaseStats getStats() {
+        DatabaseStats stats = getPageStats();
+        try {
+            dbManager.read(conn -> {
+                stats.setLiveVisits(count(conn, COUNT_LIVE_SQL));
+                stats.setDeletedVisits(count(conn, COUNT_DELETED_SQL));
+                stats.setArchivedVisits(count(conn, COUNT_ARCHIVED_SQL));
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(TABLE_SIZES_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        stats.getTableBytes().put(rs.getString("name"), rs.getLong("pgsize"));
+                        stats.getTableUnusedBytes().put(rs.getString("name"), rs.getLong("unused"));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            // SQLite built without the dbstat table: sizes stay empty
+            System.err.println("Table sizes unavailable: " + e.getMessage());
+        }
+        return stats;
+    }
+
+    private static int count(PooledConnection conn, String sql) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(sql);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static long pragma(Statement stmt, String name) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery("PRAGMA " + name)) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.nutrimap.dao;
+
+import java.sql.SQLException;
+
+/**
+ * One versioned step of the schema, applied once by SchemaMigrator.
+ *
+ * Implementations must be safe to re-run: a migration interrupted before its version
+ * is recorded will be applied again on the next startup.
+ */
+public interface Migration {
+    int getVersion();
+
+    String getDescription();
+
+    void apply(DatabaseManager db) throws SQLException;
+}
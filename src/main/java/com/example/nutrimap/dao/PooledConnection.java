@@ -0,0 +1,113 @@
+package com.example.nutrimap.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A connection owned by DatabaseManager's pool, together with its prepared statement cache.
+ *
+ * Statements are cached by SQL text and reused for the lifetime of the connection, so SQLite
+ * parses and plans each query once per connection instead of once per call. Callers must NOT
+ * close statements returned by {@link #prepare(String)}; they should still close result sets.
+ * A pooled connection is only ever used by one thread at a time.
+ *
+ * Cached statements are timed by QueryMetrics.
+ */
+public class PooledConnection {
+    private static final int MAX_CACHED_STATEMENTS = 64;
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    PooledConnection(Connection connection) {
+        this.connection = connection;
+        // Access-ordered so the least recently used statement is evicted first
+        this.statements = new LinkedHashMap<>(MAX_CACHED_STATEMENTS, 0.75f, true);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Get a cached prepared statement for the given SQL, preparing it on first use.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    /**
+     * Get a cached prepared statement, optionally returning generated keys.
+     */
+    public PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+        PreparedStatement pstmt = statements.get(key);
+        if (pstmt != null && !pstmt.isClosed()) {
+            hits.incrementAndGet();
+            pstmt.clearParameters();
+            // A batch left over from a failed executeBatch must not leak into the next caller
+            pstmt.clearBatch();
+            return pstmt;
+        }
+        misses.incrementAndGet();
+        pstmt = QueryMetrics.getInstance().instrument(connection.prepareStatement(sql, autoGeneratedKeys), sql);
+        statements.put(key, pstmt);
+        evictIfFull();
+        return pstmt;
+    }
+
+    /**
+     * Rowid of the most recent successful INSERT on this connection.
+     */
+    public long lastInsertRowId() throws SQLException {
+        try (ResultSet rs = prepare("SELECT last_insert_rowid()").executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private void evictIfFull() {
+        Iterator<PreparedStatement> it = statements.values().iterator();
+        while (statements.size() > MAX_CACHED_STATEMENTS && it.hasNext()) {
+            PreparedStatement eldest = it.next();
+            it.remove();
+            closeQuietly(eldest);
+        }
+    }
+
+    public long getCacheHits() {
+        return hits.get();
+    }
+
+    public long getCacheMisses() {
+        return misses.get();
+    }
+
+    public int getCachedStatementCount() {
+        return statements.size();
+    }
+
+    void close() throws SQLException {
+        for (PreparedStatement pstmt : statements.values()) {
+            closeQuietly(pstmt);
+        }
+        statements.clear();
+        connection.close();
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
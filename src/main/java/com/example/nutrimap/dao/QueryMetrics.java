@@ -0,0 +1,232 @@
+package com.example.nutrimap.dao;
+
+import com.example.nutrimap.model.QueryTiming;
+import com.example.nutrimap.model.SlowQuery;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latency histograms per named query, plus connection wait and write transaction times.
+ *
+ * Every statement handed out by PooledConnection.prepare and DatabaseManager.stream is
+ * wrapped (see InstrumentedStatement) and timed from execute until its result set is closed,
+ * which is when SQLite has actually stepped the rows. A query is named after the DAO constant
+ * holding its SQL, e.g. "VisitDAO.SEARCH_SQL". Executions slower than the threshold
+ * (-Dnutrimap.db.slowQueryMs, default 200) are appended with their bound parameters to
+ * a log file next to the database and kept in memory for the diagnostics view. Parameters of
+ * statements touching a password column are redacted.
+ *
+ * Statements created directly on getConnection() (PRAGMAs, schema changes) are not timed.
+ * -Dnutrimap.db.metrics=false turns the wrapping off.
+ */
+public class QueryMetrics {
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("nutrimap.db.metrics"));
+    private static final long SLOW_QUERY_MS = Long.getLong("nutrimap.db.slowQueryMs", 200);
+    private static final int MAX_SLOW_QUERIES = 100;
+    private static final int MAX_PARAMETER_CHARS = 80;
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // DAOs whose *_SQL constants name queries; QueryPlanCheckerTest checks the same set
+    static final Class<?>[] DAO_CLASSES = { ChildDAO.class, VisitDAO.class, UserDAO.class, ChildStatusDAO.class,
+        VisitJournal.class, MaintenanceDAO.class };
+
+    static final String READER_WAIT = "(reader wait)";
+    static final String WRITER_WAIT = "(writer wait)";
+    static final String WRITE_TRANSACTION = "(write transaction)";
+
+    private static QueryMetrics instance;
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    // Newest first; guarded by itself
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+    private final Path slowLog;
+    private volatile Map<String, String> names;
+
+    private QueryMetrics() {
+        this.slowLog = Paths.get(DatabaseManager.getDatabasePath() + "-slow-queries.log");
+    }
+
+    public static synchronized QueryMetrics getInstance() {
+        if (instance == null) {
+            instance = new QueryMetrics();
+        }
+        return instance;
+    }
+
+    /**
+     * Wrap a statement so its executions are timed under the name of its SQL.
+     */
+    PreparedStatement instrument(PreparedStatement pstmt, String sql) {
+        if (!ENABLED) {
+            return pstmt;
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class }, new InstrumentedStatement(this, pstmt, nameOf(sql), sql));
+    }
+
+    void record(String name, String sql, long nanos, long rows, Object[] params) {
+        histogram(name).record(nanos, rows);
+        if (nanos >= SLOW_QUERY_MS * 1_000_000) {
+            logSlowQuery(name, sql, nanos, rows, params);
+        }
+    }
+
+    void recordError(String name) {
+        histogram(name).recordError();
+    }
+
+    void recordWait(String name, long nanos) {
+        if (ENABLED) {
+            histogram(name).record(nanos, 0);
+        }
+    }
+
+    void recordTransaction(long nanos, boolean committed) {
+        if (!ENABLED) {
+            return;
+        }
+        if (committed) {
+            record(WRITE_TRANSACTION, "", nanos, 0, null);
+        } else {
+            recordError(WRITE_TRANSACTION);
+        }
+    }
+
+    private LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Every named query seen so far, the most total time first.
+     */
+    public List<QueryTiming> getTimings() {
+        List<QueryTiming> timings = new ArrayList<>();
+        histograms.forEach((name, h) -> timings.add(new QueryTiming(name, h.getCount(), h.getErrors(), h.getRows(),
+                millis(h.getTotalNanos()), millis(h.percentileNanos(0.50)), millis(h.percentileNanos(0.95)),
+                millis(h.percentileNanos(0.99)), millis(h.getMaxNanos()))));
+        timings.sort(Comparator.comparingDouble(QueryTiming::getTotalMs).reversed());
+        return timings;
+    }
+
+    /**
+     * The most recent slow executions, newest first.
+     */
+    public List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public long getSlowQueryThresholdMs() {
+        return SLOW_QUERY_MS;
+    }
+
+    public Path getSlowQueryLog() {
+        return slowLog;
+    }
+
+    /**
+     * Forget all timings and slow queries; the log file is kept.
+     */
+    public void reset() {
+        histograms.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    private void logSlowQuery(String name, String sql, long nanos, long rows, Object[] params) {
+        SlowQuery slow = new SlowQuery(LocalDateTime.now().format(DATETIME_FORMATTER), name, millis(nanos), rows,
+                formatParameters(sql, params), sql);
+        synchronized (slowQueries) {
+            slowQueries.addFirst(slow);
+            if (slowQueries.size() > MAX_SLOW_QUERIES) {
+                slowQueries.removeLast();
+            }
+            String line = slow.getTime() + " " + String.format("%.1f", slow.getMillis()) + " ms " + rows + " rows " +
+                    name + " " + slow.getParameters() + " " + sql.replaceAll("\\s+", " ") + System.lineSeparator();
+            try {
+                Files.write(slowLog, line.getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static String formatParameters(String sql, Object[] params) {
+        if (params == null) {
+            return "[]";
+        }
+        // Never write credentials to the log
+        if (sql.toLowerCase().contains("password")) {
+            return "[redacted]";
+        }
+        String[] values = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            Object value = params[i];
+            String text = value instanceof String ? "'" + value + "'" : String.valueOf(value);
+            values[i] = text.length() > MAX_PARAMETER_CHARS ? text.substring(0, MAX_PARAMETER_CHARS) + "..." : text;
+        }
+        return Arrays.toString(values);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // "ChildDAO.SELECT_ALL_SQL" for the DAO constants, else the start of the SQL itself
+    private String nameOf(String sql) {
+        Map<String, String> known = names;
+        if (known == null) {
+            known = collectNames();
+            names = known;
+        }
+        String name = known.get(sql);
+        if (name != null) {
+            return name;
+        }
+        String flat = sql.replaceAll("\\s+", " ").trim();
+        return flat.length() > 60 ? flat.substring(0, 60) + "..." : flat;
+    }
+
+    private static Map<String, String> collectNames() {
+        Map<String, String> known = new HashMap<>();
+        for (Class<?> dao : DAO_CLASSES) {
+            for (Field field : dao.getDeclaredFields()) {
+                int mod = field.getModifiers();
+                if (!Modifier.isStatic(mod) || !Modifier.isFinal(mod)
+                        || field.getType() != String.class || !field.getName().endsWith("_SQL")) {
+                    continue;
+                }
+                try {
+                    field.setAccessible(true);
+                    known.putIfAbsent((String) field.get(null), dao.getSimpleName() + "." + field.getName());
+                } catch (IllegalAccessException | RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        return known;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.nutrimap.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set, for cursors opened with DatabaseManager.stream.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,488 @@
+package com.example.nutrimap.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies versioned schema migrations at startup.
+ *
+ * The tables created by DatabaseManager.createTables are schema version 0. Every later
+ * change is a {@link Migration} registered in {@link #migrations()}, applied in version
+ * order and recorded in the schema_version table.
+ */
+public class SchemaMigrator {
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // Rows updated per transaction when backfilling a new column
+    static final int BACKFILL_BATCH_SIZE = 20000;
+
+    // Epoch-day expression for a "yyyy-MM-dd" TEXT column (julianday of 1970-01-01 is 2440587.5)
+    static final String EPOCH_DAY_SQL = "CAST(julianday(substr(%s, 1, 10)) - 2440587.5 AS INTEGER)";
+
+    // FTS5 tokenizer for free text. unicode61 treats Bengali vowel signs, virama and other
+    // combining marks as separators, which would split every Bengali word; keep them in tokens.
+    static final String FTS_TOKENIZER = "unicode61 remove_diacritics 2 tokenchars '" + bengaliMarks() + "'";
+
+    private final DatabaseManager db;
+
+    public SchemaMigrator(DatabaseManager db) {
+        this.db = db;
+    }
+
+    /**
+     * All migrations, in ascending version order. Append new ones at the end; never renumber.
+     */
+    static List<Migration> migrations() {
+        List<Migration> list = new ArrayList<>();
+        list.add(new EpochDayColumnsMigration());
+        list.add(sql(2, "Index epoch-day date columns",
+            "CREATE INDEX IF NOT EXISTS idx_visits_child_day ON visits(child_id, visit_day)",
+            "CREATE INDEX IF NOT EXISTS idx_visits_day ON visits(visit_day)",
+            "CREATE INDEX IF NOT EXISTS idx_children_last_visit_day ON children(last_visit_day)"));
+        // Partial index over live visits; a reverse scan serves ORDER BY visit_date DESC, visit_id DESC
+        list.add(sql(3, "Partial and collated lookup indexes",
+            "CREATE INDEX IF NOT EXISTS idx_visits_child_live ON visits(child_id, visit_date, visit_id) WHERE deleted = 0",
+            "CREATE INDEX IF NOT EXISTS idx_users_email_nocase ON users(email COLLATE NOCASE)",
+            "DROP INDEX IF EXISTS idx_visits_child"));
+        list.add(new ChildStatusMigration());
+        list.add(new ChildSearchMigration());
+        list.add(new VisitNotesSearchMigration());
+        list.add(new PagingMigration());
+        // Highest visit journal sequence number committed (see VisitJournal)
+        list.add(sql(8, "Write-behind journal state",
+            "CREATE TABLE IF NOT EXISTS journal_state (name TEXT PRIMARY KEY, applied_seq INTEGER NOT NULL)"));
+        list.add(new ArchiveMigration());
+        // Same order as the rowid but far smaller, so ChildDAO page seeks step over skipped ids quickly
+        list.add(sql(10, "Narrow child id index for page seeks",
+            "CREATE INDEX IF NOT EXISTS idx_children_id ON children(id)"));
+        return list;
+    }
+
+    /**
+     * Bring the database up to the latest schema version.
+     */
+    public void migrate() throws SQLException {
+        db.write(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                stmt.execute(
+                    "CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "    version INTEGER PRIMARY KEY," +
+                    "    description TEXT," +
+                    "    applied_at TEXT" +
+                    ")"
+                );
+            }
+            return null;
+        });
+
+        int current = getCurrentVersion();
+        for (Migration migration : migrations()) {
+            if (migration.getVersion() <= current) {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            migration.apply(db);
+            recordVersion(migration);
+            System.out.println("Applied schema migration " + migration.getVersion() + " (" +
+                migration.getDescription() + ") in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    public int getCurrentVersion() throws SQLException {
+        return db.read(conn -> {
+            PreparedStatement pstmt = conn.prepare("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        });
+    }
+
+    private void recordVersion(Migration migration) throws SQLException {
+        String now = LocalDateTime.now().format(DATETIME_FORMATTER);
+        db.write(conn -> {
+            PreparedStatement pstmt = conn.prepare(
+                "INSERT OR REPLACE INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)");
+            pstmt.setInt(1, migration.getVersion());
+            pstmt.setString(2, migration.getDescription());
+            pstmt.setString(3, now);
+            return pstmt.executeUpdate();
+        });
+    }
+
+    /**
+     * A migration made of DDL statements applied in a single transaction.
+     * Statements should use IF NOT EXISTS so that a re-run is harmless.
+     */
+    static Migration sql(int version, String description, String... statements) {
+        return new Migration() {
+            @Override
+            public int getVersion() { return version; }
+
+            @Override
+            public String getDescription() { return description; }
+
+            @Override
+            public void apply(DatabaseManager db) throws SQLException {
+                db.write(conn -> {
+                    try (Statement stmt = conn.getConnection().createStatement()) {
+                        for (String statement : statements) {
+                            stmt.execute(statement);
+                        }
+                    }
+                    return null;
+                });
+            }
+        };
+    }
+
+    // ==================== HELPERS ====================
+
+    static boolean columnExists(PooledConnection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    static void addColumnIfMissing(PooledConnection conn, String table, String column, String type) throws SQLException {
+        if (!columnExists(conn, table, column)) {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+            }
+        }
+    }
+
+    /**
+     * Run an UPDATE over a table in primary-key ranges of BACKFILL_BATCH_SIZE rows, one
+     * transaction per range, so large tables upgrade without one huge journal.
+     *
+     * @param updateSql UPDATE statement whose last two parameters bind the key range (inclusive)
+     */
+    static void backfillInBatches(DatabaseManager db, String table, String idColumn, String updateSql) throws SQLException {
+        long[] bounds = db.read(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MIN(" + idColumn + "), MAX(" + idColumn + ") FROM " + table)) {
+                return rs.next() ? new long[]{rs.getLong(1), rs.getLong(2)} : new long[]{0, -1};
+            }
+        });
+        for (long from = bounds[0]; from <= bounds[1]; from += BACKFILL_BATCH_SIZE) {
+            long lo = from;
+            long hi = from + BACKFILL_BATCH_SIZE - 1;
+            db.write(conn -> {
+                try (PreparedStatement pstmt = conn.getConnection().prepareStatement(updateSql)) {
+                    pstmt.setLong(1, lo);
+                    pstmt.setLong(2, hi);
+                    return pstmt.executeUpdate();
+                }
+            });
+        }
+    }
+
+    private static String bengaliMarks() {
+        StringBuilder marks = new StringBuilder();
+        for (char c = '\u0981'; c <= '\u0983'; c++) {
+            marks.append(c);
+        }
+        for (char c = '\u09BC'; c <= '\u09D7'; c++) {
+            marks.append(c);
+        }
+        marks.append('\u09E2').append('\u09E3');
+        return marks.toString();
+    }
+
+    // ==================== MIGRATIONS ====================
+
+    /**
+     * Version 1: integer epoch-day columns next to the TEXT dates, backfilled from them.
+     */
+    static class EpochDayColumnsMigration implements Migration {
+        @Override
+        public int getVersion() { return 1; }
+
+        @Override
+        public String getDescription() { return "Add epoch-day date columns"; }
+
+        @Override
+        public void apply(DatabaseManager db) throws SQLException {
+            db.write(conn -> {
+                addColumnIfMissing(conn, "visits", "visit_day", "INTEGER");
+                addColumnIfMissing(conn, "children", "birth_day", "INTEGER");
+                addColumnIfMissing(conn, "children", "last_visit_day", "INTEGER");
+                return null;
+            });
+            backfillInBatches(db, "visits", "visit_id",
+                "UPDATE visits SET visit_day = " + String.format(EPOCH_DAY_SQL, "visit_date") +
+                " WHERE visit_day IS NULL AND visit_id BETWEEN ? AND ?");
+            backfillInBatches(db, "children", "id",
+                "UPDATE children SET birth_day = " + String.format(EPOCH_DAY_SQL, "date_of_birth") +
+                ", last_visit_day = " + String.format(EPOCH_DAY_SQL, "last_visit") +
+                " WHERE id BETWEEN ? AND ?");
+        }
+    }
+
+    /**
+     * Version 4: trigger-maintained child_status table (see ChildStatusDAO).
+     */
+    static class ChildStatusMigration implements Migration {
+        // Latest (OFFSET 0) or previous (OFFSET 1) live visit of a child; served by idx_visits_child_live
+        private static final String VISIT_AT_SQL = "(SELECT visit_id FROM visits WHERE child_id = %s AND deleted = 0 " +
+            "ORDER BY visit_date DESC, visit_id DESC LIMIT 1 OFFSET %d)";
+
+        // Trigger statement that re-points a child's status row and flags it for evaluation
+        private static String refreshStatus(String childId, String condition) {
+            return "INSERT OR REPLACE INTO child_status (child_id, latest_visit_id, previous_visit_id, needs_evaluation) " +
+                "SELECT " + childId + ", " + String.format(VISIT_AT_SQL, childId, 0) + ", " +
+                String.format(VISIT_AT_SQL, childId, 1) + ", 1" + (condition != null ? " WHERE " + condition : "") + "; ";
+        }
+
+        @Override
+        public int getVersion() { return 4; }
+
+        @Override
+        public String getDescription() { return "Add trigger-maintained child_status table"; }
+
+        @Override
+        public void apply(DatabaseManager db) throws SQLException {
+            db.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute(
+                        "CREATE TABLE IF NOT EXISTS child_status (" +
+                        "    child_id INTEGER PRIMARY KEY," +
+                        "    latest_visit_id INTEGER," +
+                        "    previous_visit_id INTEGER," +
+                        "    nutrition_level TEXT," +
+                        "    risk_level TEXT," +
+                        "    z_score REAL," +
+                        "    needs_evaluation INTEGER NOT NULL DEFAULT 1" +
+                        ")"
+                    );
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_child_status_pending ON child_status(child_id) WHERE needs_evaluation = 1");
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_child_status_risk ON child_status(risk_level, child_id) WHERE latest_visit_id IS NOT NULL");
+
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_status_insert AFTER INSERT ON visits BEGIN " +
+                        refreshStatus("NEW.child_id", null) + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_status_update " +
+                        "AFTER UPDATE OF child_id, visit_date, weight_kg, height_cm, muac_mm, deleted ON visits BEGIN " +
+                        refreshStatus("NEW.child_id", null) +
+                        refreshStatus("OLD.child_id", "OLD.child_id <> NEW.child_id") + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_status_delete AFTER DELETE ON visits BEGIN " +
+                        refreshStatus("OLD.child_id", null) + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_status_update " +
+                        "AFTER UPDATE OF date_of_birth, gender ON children BEGIN " +
+                        "UPDATE child_status SET needs_evaluation = 1 WHERE child_id = NEW.id; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_status_delete AFTER DELETE ON children BEGIN " +
+                        "DELETE FROM child_status WHERE child_id = OLD.id; END");
+                }
+                return null;
+            });
+
+            backfillInBatches(db, "children", "id",
+                "INSERT OR REPLACE INTO child_status (child_id, latest_visit_id, previous_visit_id, needs_evaluation) " +
+                "SELECT c.id, " + String.format(VISIT_AT_SQL, "c.id", 0) + ", " + String.format(VISIT_AT_SQL, "c.id", 1) + ", 1 " +
+                "FROM children c WHERE c.id BETWEEN ? AND ?");
+
+            // Evaluate in separate transactions so the backlog never sits in one huge journal
+            while (db.write(conn -> ChildStatusDAO.evaluatePending(conn, BACKFILL_BATCH_SIZE)) == BACKFILL_BATCH_SIZE) {
+                // keep going until a partial batch shows the backlog is drained
+            }
+        }
+    }
+
+    /**
+     * Version 5: FTS5 index over child names and location fields (see ChildDAO.search).
+     *
+     * External-content table over children, so the text is not stored twice; triggers keep it
+     * in sync and the default rank weights names above location fields.
+     */
+    static class ChildSearchMigration implements Migration {
+        static final String COLUMNS = "full_name, fathers_name, mothers_name, branch_name, division, district, upazilla, union_name";
+
+        private static String values(String prefix) {
+            StringBuilder values = new StringBuilder();
+            for (String column : COLUMNS.split(", ")) {
+                values.append(", ").append(prefix).append(column);
+            }
+            return values.toString();
+        }
+
+        @Override
+        public int getVersion() { return 5; }
+
+        @Override
+        public String getDescription() { return "Add FTS5 child search index"; }
+
+        @Override
+        public void apply(DatabaseManager db) throws SQLException {
+            db.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS children_fts USING fts5(" + COLUMNS + ", " +
+                        "content = 'children', content_rowid = 'id', tokenize = \"" + FTS_TOKENIZER + "\", prefix = '2 3')");
+                    // bm25 weights in COLUMNS order: child name, parents, branch and location
+                    stmt.execute("INSERT INTO children_fts (children_fts, rank) VALUES ('rank', 'bm25(10.0, 4.0, 4.0, 1.0, 1.0, 1.0, 1.0, 1.0)')");
+
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_fts_insert AFTER INSERT ON children BEGIN " +
+                        "INSERT INTO children_fts (rowid, " + COLUMNS + ") VALUES (NEW.id" + values("NEW.") + "); END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_fts_update AFTER UPDATE OF " + COLUMNS + " ON children BEGIN " +
+                        "INSERT INTO children_fts (children_fts, rowid, " + COLUMNS + ") VALUES ('delete', OLD.id" + values("OLD.") + "); " +
+                        "INSERT INTO children_fts (rowid, " + COLUMNS + ") VALUES (NEW.id" + values("NEW.") + "); END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_fts_delete AFTER DELETE ON children BEGIN " +
+                        "INSERT INTO children_fts (children_fts, rowid, " + COLUMNS + ") VALUES ('delete', OLD.id" + values("OLD.") + "); END");
+
+                    stmt.execute("INSERT INTO children_fts (children_fts) VALUES ('rebuild')");
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Version 6: FTS5 index over visit notes and the child's name (see VisitDAO.search).
+     *
+     * Unlike children_fts this table stores its own text, because the child's name lives in
+     * another table. Only live visits are indexed, so a soft delete drops the visit from it.
+     */
+    static class VisitNotesSearchMigration implements Migration {
+        private static final String INDEX_VISIT = "INSERT INTO visits_fts (rowid, notes, child_name) " +
+            "SELECT NEW.visit_id, NEW.notes, (SELECT full_name FROM children WHERE id = NEW.child_id)";
+
+        @Override
+        public int getVersion() { return 6; }
+
+        @Override
+        public String getDescription() { return "Add FTS5 visit notes search index"; }
+
+        @Override
+        public void apply(DatabaseManager db) throws SQLException {
+            db.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute("CREATE VIRTUAL TABLE IF NOT EXISTS visits_fts USING fts5(notes, child_name, " +
+                        "tokenize = \"" + FTS_TOKENIZER + "\", prefix = '2 3')");
+
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_fts_insert AFTER INSERT ON visits " +
+                        "WHEN NEW.deleted = 0 BEGIN " + INDEX_VISIT + "; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_fts_update AFTER UPDATE OF child_id, notes, deleted ON visits BEGIN " +
+                        "DELETE FROM visits_fts WHERE rowid = OLD.visit_id; " +
+                        INDEX_VISIT + " WHERE NEW.deleted = 0; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_fts_delete AFTER DELETE ON visits BEGIN " +
+                        "DELETE FROM visits_fts WHERE rowid = OLD.visit_id; END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_fts_visits AFTER UPDATE OF full_name ON children BEGIN " +
+                        "UPDATE visits_fts SET child_name = NEW.full_name " +
+                        "WHERE rowid IN (SELECT visit_id FROM visits WHERE child_id = NEW.id AND deleted = 0); END");
+
+                    // Start from empty so a re-run after an interrupted backfill does not hit duplicate rowids
+                    stmt.execute("DELETE FROM visits_fts");
+                }
+                return null;
+            });
+
+            backfillInBatches(db, "visits", "visit_id",
+                "INSERT INTO visits_fts (rowid, notes, child_name) " +
+                "SELECT v.visit_id, v.notes, c.full_name FROM visits v LEFT JOIN children c ON c.id = v.child_id " +
+                "WHERE v.deleted = 0 AND v.visit_id BETWEEN ? AND ?");
+        }
+    }
+
+    /**
+     * Version 7: index for keyset paging of visits, and trigger-maintained row counts so
+     * the table views can show a total without counting every row.
+     */
+    static class PagingMigration implements Migration {
+        // +1 / -1 for a visit entering or leaving the live (deleted = 0) set
+        private static final String LIVE = "(CASE WHEN %s.deleted = 0 THEN 1 ELSE 0 END)";
+
+        private static String adjust(String table, String delta) {
+            return "UPDATE table_counts SET total = total + " + delta + " WHERE name = '" + table + "'; ";
+        }
+
+        @Override
+        public int getVersion() { return 7; }
+
+        @Override
+        public String getDescription() { return "Add keyset paging index and row counts"; }
+
+        @Override
+        public void apply(DatabaseManager db) throws SQLException {
+            db.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_visits_live_date ON visits(visit_date, visit_id) WHERE deleted = 0");
+                    stmt.execute(
+                        "CREATE TABLE IF NOT EXISTS table_counts (" +
+                        "    name TEXT PRIMARY KEY," +
+                        "    total INTEGER NOT NULL" +
+                        ")"
+                    );
+
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_count_insert AFTER INSERT ON children BEGIN " +
+                        adjust("children", "1") + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_children_count_delete AFTER DELETE ON children BEGIN " +
+                        adjust("children", "-1") + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_count_insert AFTER INSERT ON visits BEGIN " +
+                        adjust("visits", String.format(LIVE, "NEW")) + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_count_update AFTER UPDATE OF deleted ON visits BEGIN " +
+                        adjust("visits", String.format(LIVE, "NEW") + " - " + String.format(LIVE, "OLD")) + "END");
+                    stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_visits_count_delete AFTER DELETE ON visits BEGIN " +
+                        adjust("visits", "-" + String.format(LIVE, "OLD")) + "END");
+
+                    // Counted in the same transaction that creates the triggers, so no change is missed
+                    stmt.execute("INSERT OR REPLACE INTO table_counts (name, total) SELECT 'children', COUNT(*) FROM children");
+                    stmt.execute("INSERT OR REPLACE INTO table_counts (name, total) SELECT 'visits', COUNT(*) FROM visits WHERE deleted = 0");
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Version 9: archive table for visits moved out of the live table (see MaintenanceDAO).
+     * Incremental auto-vacuum needs a full VACUUM on an existing file, so MaintenanceService
+     * switches it on in the background rather than holding up startup here.
+     */
+    static class ArchiveMigration implements Migration {
+        @Override
+        public int getVersion() { return 9; }
+
+        @Override
+        public String getDescription() { return "Add visits archive"; }
+
+        @Override
+        public void apply(DatabaseManager db) throws SQLException {
+            db.write(conn -> {
+                try (Statement stmt = conn.getConnection().createStatement()) {
+                    stmt.execute(
+                        "CREATE TABLE IF NOT EXISTS visits_archive (" +
+                        "    visit_id INTEGER PRIMARY KEY," +
+                        "    child_id INTEGER NOT NULL," +
+                        "    visit_date TEXT NOT NULL," +
+                        "    weight_kg REAL," +
+                        "    height_cm REAL," +
+                        "    muac_mm INTEGER," +
+                        "    risk_level TEXT," +
+                        "    notes TEXT," +
+                        "    created_at TEXT," +
+                        "    updated_at TEXT," +
+                        "    entered_by INTEGER," +
+                        "    deleted INTEGER," +
+                        "    visit_day INTEGER," +
+                        "    archived_at TEXT" +
+                        ")"
+                    );
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_visits_archive_child ON visits_archive(child_id, visit_day)");
+                    // Tombstones waiting to be archived; stays tiny because the archiver drains it
+                    stmt.execute("CREATE INDEX IF NOT EXISTS idx_visits_deleted ON visits(visit_id) WHERE deleted = 1");
+                }
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.nutrimap.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Unit of database work executed by DatabaseManager against a pooled connection.
+ */
+@FunctionalInterface
+public interface SqlFunction<T> {
+    T apply(PooledConnection connection) throws SQLException;
+}
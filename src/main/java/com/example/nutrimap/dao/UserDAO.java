@@ -14,20 +14,39 @@ import java.util.List;
 public class UserDAO {
     private final DatabaseManager dbManager;
 
+    @FullScan
+    static final String SELECT_ALL_SQL = "SELECT * FROM users ORDER BY id";
+
+    static final String SELECT_BY_ID_SQL = "SELECT * FROM users WHERE id = ?";
+
+    static final String SELECT_BY_EMAIL_SQL = "SELECT * FROM users WHERE email = ? COLLATE NOCASE";
+
+    static final String INSERT_SQL = "INSERT INTO users (name, email, password, role, image_path) VALUES (?, ?, ?, ?, ?)";
+
+    static final String UPDATE_SQL = "UPDATE users SET name = ?, email = ?, password = ?, role = ?, image_path = ? WHERE id = ?";
+
+    static final String DELETE_SQL = "DELETE FROM users WHERE id = ?";
+
+    @FullScan
+    static final String SEARCH_SQL = "SELECT * FROM users WHERE name LIKE ? OR email LIKE ? OR role LIKE ? ORDER BY id";
+
     public UserDAO() {
         this.dbManager = DatabaseManager.getInstance();
     }
 
     public List<UserModel> getAllUsers() {
         List<UserModel> users = new ArrayList<>();
-        String sql = "SELECT * FROM users ORDER BY id";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                users.add(mapResultSetToUser(rs));
-            }
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_ALL_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -39,15 +58,14 @@ public class UserDAO {
     }
 
     public UserModel getById(int id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToUser(rs);
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_BY_ID_SQL);
+                pstmt.setInt(1, id);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToUser(rs) : null;
                 }
-            }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -55,15 +73,14 @@ public class UserDAO {
     }
 
     public UserModel getByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE email = ? COLLATE NOCASE";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, email);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToUser(rs);
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_BY_EMAIL_SQL);
+                pstmt.setString(1, email);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToUser(rs) : null;
                 }
-            }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -83,48 +100,52 @@ public class UserDAO {
     }
 
     public void addUser(UserModel user) {
-        String sql = "INSERT INTO users (name, email, password, role, image_path) VALUES (?, ?, ?, ?, ?)";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setString(1, user.getName());
-            pstmt.setString(2, user.getEmail());
-            pstmt.setString(3, user.getPassword());
-            pstmt.setString(4, user.getRole());
-            pstmt.setString(5, user.getImagePath());
-            pstmt.executeUpdate();
-            
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    user.setId(generatedKeys.getInt(1));
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                pstmt.setString(1, user.getName());
+                pstmt.setString(2, user.getEmail());
+                pstmt.setString(3, user.getPassword());
+                pstmt.setString(4, user.getRole());
+                pstmt.setString(5, user.getImagePath());
+                pstmt.executeUpdate();
+                
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        user.setId(generatedKeys.getInt(1));
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public void updateUser(UserModel user) {
-        String sql = "UPDATE users SET name = ?, email = ?, password = ?, role = ?, image_path = ? WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, user.getName());
-            pstmt.setString(2, user.getEmail());
-            pstmt.setString(3, user.getPassword());
-            pstmt.setString(4, user.getRole());
-            pstmt.setString(5, user.getImagePath());
-            pstmt.setInt(6, user.getId());
-            pstmt.executeUpdate();
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(UPDATE_SQL);
+                pstmt.setString(1, user.getName());
+                pstmt.setString(2, user.getEmail());
+                pstmt.setString(3, user.getPassword());
+                pstmt.setString(4, user.getRole());
+                pstmt.setString(5, user.getImagePath());
+                pstmt.setInt(6, user.getId());
+                return pstmt.executeUpdate();
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     public void deleteUser(int id) {
-        String sql = "DELETE FROM users WHERE id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, id);
-            pstmt.executeUpdate();
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(DELETE_SQL);
+                pstmt.setInt(1, id);
+                return pstmt.executeUpdate();
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -136,18 +157,21 @@ public class UserDAO {
         }
         
         List<UserModel> users = new ArrayList<>();
-        String sql = "SELECT * FROM users WHERE name LIKE ? OR email LIKE ? OR role LIKE ? ORDER BY id";
         String pattern = "%" + keyword + "%";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, pattern);
-            pstmt.setString(2, pattern);
-            pstmt.setString(3, pattern);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    users.add(mapResultSetToUser(rs));
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SEARCH_SQL);
+                pstmt.setString(1, pattern);
+                pstmt.setString(2, pattern);
+                pstmt.setString(3, pattern);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        users.add(mapResultSetToUser(rs));
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -1,66 +1,309 @@
 package com.example.nutrimap.dao;
 
+import com.example.nutrimap.model.VisitMeasurement;
 import com.example.nutrimap.model.VisitModel;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class VisitDAO {
     private final DatabaseManager dbManager;
+    // Null unless write-behind is enabled (see VisitJournal)
+    private final VisitJournal journal;
     private final ObservableList<VisitModel> visitList = FXCollections.observableArrayList();
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    @FullScan
+    static final String SELECT_ALL_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.deleted = 0 ORDER BY v.visit_id DESC";
+
+    // Maintained by triggers (schema migration 7)
+    static final String COUNT_SQL = "SELECT total FROM table_counts WHERE name = 'visits'";
+
+    // Keyset pages, newest visit first, walking idx_visits_live_date backwards. The subquery
+    // finds the page's first key by stepping over skipped rows in that covering index only.
+    private static final String PAGE_START = "SELECT visit_date, visit_id FROM visits WHERE deleted = 0 ";
+
+    static final String SELECT_FIRST_PAGE_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.deleted = 0 AND (v.visit_date, v.visit_id) <= (" + PAGE_START +
+            "ORDER BY visit_date DESC, visit_id DESC LIMIT 1 OFFSET ?) " +
+            "ORDER BY v.visit_date DESC, v.visit_id DESC LIMIT ?";
+
+    static final String SELECT_PAGE_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.deleted = 0 AND (v.visit_date, v.visit_id) <= (" + PAGE_START +
+            "AND (visit_date, visit_id) < (?, ?) ORDER BY visit_date DESC, visit_id DESC LIMIT 1 OFFSET ?) " +
+            "ORDER BY v.visit_date DESC, v.visit_id DESC LIMIT ?";
+
+    static final String SELECT_BY_ID_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.visit_id = ? AND v.deleted = 0";
+
+    static final String SELECT_BY_CHILD_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.child_id = ? AND v.deleted = 0 ORDER BY v.visit_date DESC, v.visit_id DESC";
+
+    static final String SELECT_LATEST_BY_CHILD_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.child_id = ? AND v.deleted = 0 ORDER BY v.visit_date DESC, v.visit_id DESC LIMIT 1";
+
+    // Marks around matched terms in VisitModel.getNotesSnippet()
+    public static final String HIGHLIGHT_START = "\u0002";
+    public static final String HIGHLIGHT_END = "\u0003";
+
+    // Matches come from the FTS index and only they are sorted, keeping the newest LIMIT rows.
+    // Walking visits by date instead probes the index once per visit: seconds for a rare word.
+    private static final String SEARCH = "SELECT v.*, c.full_name as child_name, " +
+            "snippet(visits_fts, 0, char(2), char(3), '...', 12) AS notes_snippet FROM visits_fts " +
+            "CROSS JOIN visits v ON v.visit_id = visits_fts.rowid " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE visits_fts MATCH ? AND v.deleted = 0 ";
+
+    // Without a date range, so visits whose date could not be parsed (no visit_day) still match
+    @BoundedSort
+    static final String SEARCH_SQL = SEARCH + "ORDER BY v.visit_day DESC, v.visit_id DESC LIMIT ?";
+
+    @BoundedSort
+    static final String SEARCH_BY_DAY_RANGE_SQL = SEARCH + "AND v.visit_day BETWEEN ? AND ? " +
+            "ORDER BY v.visit_day DESC, v.visit_id DESC LIMIT ?";
+
+    // Newest live visits for a search without keyword or dates, walking idx_visits_live_date backwards
+    static final String SELECT_RECENT_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.deleted = 0 ORDER BY v.visit_date DESC, v.visit_id DESC LIMIT ?";
+
+    static final String SELECT_BY_DAY_RANGE_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.visit_day BETWEEN ? AND ? AND v.deleted = 0 " +
+            "ORDER BY v.visit_day DESC, v.visit_id DESC LIMIT ?";
+
+    static final String STREAM_BY_DAY_RANGE_SQL = "SELECT v.*, c.full_name as child_name FROM visits v " +
+            "LEFT JOIN children c ON v.child_id = c.id " +
+            "WHERE v.visit_day BETWEEN ? AND ? AND v.deleted = 0 " +
+            "ORDER BY v.visit_day DESC, v.visit_id DESC";
+
+    // VisitMeasurement projection; columns are read by position in mapMeasurement
+    private static final String SELECT_MEASUREMENT = "SELECT visit_id, child_id, visit_date, visit_day, " +
+            "weight_kg, height_cm, muac_mm, risk_level FROM visits ";
+
+    static final String SELECT_RECENT_MEASUREMENTS_SQL = SELECT_MEASUREMENT +
+            "WHERE child_id = ? AND deleted = 0 ORDER BY visit_date DESC, visit_id DESC LIMIT ?";
+
+    static final String STREAM_MEASUREMENTS_BY_DAY_RANGE_SQL = SELECT_MEASUREMENT +
+            "WHERE visit_day BETWEEN ? AND ? AND deleted = 0 ORDER BY visit_day";
+
+    // Most recent matches returned by search(String)
+    public static final int DEFAULT_SEARCH_LIMIT = 1000;
+
+    static final String INSERT_SQL = "INSERT INTO visits (child_id, visit_date, weight_kg, height_cm, muac_mm, risk_level, notes, created_at, updated_at, entered_by, visit_day, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    static final String UPDATE_SQL = "UPDATE visits SET child_id = ?, visit_date = ?, weight_kg = ?, height_cm = ?, muac_mm = ?, risk_level = ?, notes = ?, updated_at = ?, visit_day = ? WHERE visit_id = ?";
+
+    static final String SOFT_DELETE_SQL = "UPDATE visits SET deleted = 1 WHERE visit_id = ?";
+
+    static final String SELECT_CHILD_ID_SQL = "SELECT child_id FROM visits WHERE visit_id = ?";
+
+    static final String UPDATE_CHILD_LAST_VISIT_SQL = "UPDATE children SET last_visit = ?, last_visit_day = ? WHERE id = ?";
+
+    // Recompute last_visit for every child with a visit in an inserted id range
+    static final String UPDATE_CHILDREN_LAST_VISIT_SQL = "UPDATE children SET (last_visit, last_visit_day) = " +
+            "(SELECT MAX(visit_date), MAX(visit_day) FROM visits WHERE child_id = children.id AND deleted = 0) " +
+            "WHERE id IN (SELECT child_id FROM visits WHERE visit_id BETWEEN ? AND ?)";
+
+    static final String SELECT_LAST_VISIT_DATE_SQL = "SELECT MAX(visit_date) as last_visit FROM visits WHERE child_id = ? AND deleted = 0";
+
+    private boolean visitListLoaded;
+
     public VisitDAO() {
         this.dbManager = DatabaseManager.getInstance();
-        loadVisits();
+        this.journal = VisitJournal.getInstance();
     }
 
     private void loadVisits() {
         visitList.setAll(getAll());
+        visitListLoaded = true;
     }
 
     public List<VisitModel> getAll() {
+        syncJournal();
         List<VisitModel> visits = new ArrayList<>();
-        String sql = "SELECT v.*, c.full_name as child_name FROM visits v " +
-                     "LEFT JOIN children c ON v.child_id = c.id " +
-                     "WHERE v.deleted = 0 ORDER BY v.visit_id DESC";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()) {
-            
-            while (rs.next()) {
-                visits.add(mapResultSetToVisit(rs));
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_ALL_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        visits.add(mapResultSetToVisit(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return visits;
+    }
+
+    /**
+     * Live visits, newest first, read from a live cursor one row at a time. Must be closed;
+     * see DatabaseManager.stream.
+     *
+     * @param from first visit date to include, or null for no lower bound
+     * @param to last visit date to include, or null for no upper bound; with either bound,
+     *           visits whose date could not be parsed are left out, as they cannot be placed
+     *           before or after it
+     */
+    public Stream<VisitModel> streamVisits(LocalDate from, LocalDate to) {
+        syncJournal();
+        try {
+            if (from == null && to == null) {
+                return dbManager.stream(SELECT_ALL_SQL, this::mapResultSetToVisit);
             }
+            long fromDay = from != null ? from.toEpochDay() : Integer.MIN_VALUE;
+            long toDay = to != null ? to.toEpochDay() : Integer.MAX_VALUE;
+            return dbManager.stream(STREAM_BY_DAY_RANGE_SQL, this::mapResultSetToVisit, fromDay, toDay);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Stream.empty();
+        }
+    }
+
+    /**
+     * Pass every live visit, newest first, to action without holding them all in memory.
+     */
+    public void forEachVisit(Consumer<? super VisitModel> action) {
+        try (Stream<VisitModel> visits = streamVisits(null, null)) {
+            visits.forEach(action);
+        }
+    }
+
+    /**
+     * Measurements of the child's latest visits, newest first, for trend analysis.
+     */
+    public List<VisitMeasurement> getRecentMeasurements(int childId, int limit) {
+        syncJournal(childId);
+        List<VisitMeasurement> visits = new ArrayList<>();
+
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_RECENT_MEASUREMENTS_SQL);
+                pstmt.setInt(1, childId);
+                pstmt.setInt(2, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        visits.add(mapMeasurement(rs));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return visits;
     }
 
+    /**
+     * Pass the measurements of every live visit between from and to (inclusive) to action,
+     * oldest first, read from a live cursor.
+     */
+    public void forEachMeasurement(LocalDate from, LocalDate to, Consumer<? super VisitMeasurement> action) {
+        syncJournal();
+        try (Stream<VisitMeasurement> visits = dbManager.stream(STREAM_MEASUREMENTS_BY_DAY_RANGE_SQL,
+                VisitDAO::mapMeasurement, from.toEpochDay(), to.toEpochDay())) {
+            visits.forEach(action);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * All visits as an observable list, loaded on first use. Table views should page
+     * with {@link #getPageAfter} instead.
+     */
     public ObservableList<VisitModel> getObservableVisits() {
+        if (!visitListLoaded) {
+            loadVisits();
+        }
         return visitList;
     }
 
+    /**
+     * One page of visits, newest visit date first.
+     *
+     * @param after last visit of the previous page, or null to start from the newest visit
+     * @param skip rows to skip after it, for jumping over pages that were never loaded
+     */
+    public List<VisitModel> getPageAfter(VisitModel after, int skip, int limit) {
+        syncJournal();
+        List<VisitModel> visits = new ArrayList<>();
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt;
+                int index = 1;
+                if (after == null) {
+                    pstmt = conn.prepare(SELECT_FIRST_PAGE_SQL);
+                } else {
+                    pstmt = conn.prepare(SELECT_PAGE_SQL);
+                    pstmt.setString(index++, after.getVisitDate());
+                    pstmt.setInt(index++, after.getVisitId());
+                }
+                pstmt.setInt(index++, skip);
+                pstmt.setInt(index, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        visits.add(mapResultSetToVisit(rs));
+                    }
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return visits;
+    }
+
+    /**
+     * Number of visits that are not soft-deleted.
+     */
+    public int getCount() {
+        syncJournal();
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(COUNT_SQL);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return 0;
+        }
+    }
+
     public VisitModel getById(int visitId) {
-        String sql = "SELECT v.*, c.full_name as child_name FROM visits v " +
-                     "LEFT JOIN children c ON v.child_id = c.id " +
-                     "WHERE v.visit_id = ? AND v.deleted = 0";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, visitId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToVisit(rs);
+        syncJournal();
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_BY_ID_SQL);
+                pstmt.setInt(1, visitId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToVisit(rs) : null;
                 }
-            }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -68,18 +311,20 @@ public class VisitDAO {
     }
 
     public List<VisitModel> getByChildId(int childId) {
+        syncJournal(childId);
         List<VisitModel> visits = new ArrayList<>();
-        String sql = "SELECT v.*, c.full_name as child_name FROM visits v " +
-                     "LEFT JOIN children c ON v.child_id = c.id " +
-                     "WHERE v.child_id = ? AND v.deleted = 0 ORDER BY v.visit_date DESC, v.visit_id DESC";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, childId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    visits.add(mapResultSetToVisit(rs));
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_BY_CHILD_SQL);
+                pstmt.setInt(1, childId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        visits.add(mapResultSetToVisit(rs));
+                    }
                 }
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -87,17 +332,15 @@ public class VisitDAO {
     }
 
     public VisitModel getLatestVisitByChildId(int childId) {
-        String sql = "SELECT v.*, c.full_name as child_name FROM visits v " +
-                     "LEFT JOIN children c ON v.child_id = c.id " +
-                     "WHERE v.child_id = ? AND v.deleted = 0 ORDER BY v.visit_date DESC, v.visit_id DESC LIMIT 1";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, childId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return mapResultSetToVisit(rs);
+        syncJournal(childId);
+        try {
+            return dbManager.read(conn -> {
+                PreparedStatement pstmt = conn.prepare(SELECT_LATEST_BY_CHILD_SQL);
+                pstmt.setInt(1, childId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    return rs.next() ? mapResultSetToVisit(rs) : null;
                 }
-            }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -105,129 +348,253 @@ public class VisitDAO {
     }
 
     public List<VisitModel> search(String keyword) {
-        if (keyword == null || keyword.isEmpty()) {
-            return getAll();
-        }
+        return search(keyword, null, null, DEFAULT_SEARCH_LIMIT);
+    }
+
+    /**
+     * Full-text search over visit notes and child names, newest visit date first. Words match
+     * as token prefixes and quoted text as a phrase (e.g. "pitting oedema" refer). Matched
+     * visits carry a notes snippet with the terms between HIGHLIGHT_START and HIGHLIGHT_END.
+     *
+     * @param from first visit date to include, or null for no lower bound
+     * @param to last visit date to include, or null for no upper bound; with either bound,
+     *           visits whose date could not be parsed are left out
+     * @param limit most recent visits to return; also applies with no keyword and no dates
+     */
+    public List<VisitModel> search(String keyword, LocalDate from, LocalDate to, int limit) {
+        boolean noKeyword = keyword == null || keyword.isBlank();
         
+        syncJournal();
         List<VisitModel> visits = new ArrayList<>();
-        String sql = "SELECT v.*, c.full_name as child_name FROM visits v " +
-                     "LEFT JOIN children c ON v.child_id = c.id " +
-                     "WHERE v.deleted = 0 AND (c.full_name LIKE ? OR v.visit_date LIKE ? OR v.notes LIKE ?) " +
-                     "ORDER BY v.visit_id DESC";
-        String pattern = "%" + keyword + "%";
+        String match = noKeyword ? null : FtsQuery.match(keyword);
+        if (!noKeyword && match == null) {
+            return visits;
+        }
+        boolean dayRange = from != null || to != null;
+        long fromDay = from != null ? from.toEpochDay() : Integer.MIN_VALUE;
+        long toDay = to != null ? to.toEpochDay() : Integer.MAX_VALUE;
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, pattern);
-            pstmt.setString(2, pattern);
-            pstmt.setString(3, pattern);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    visits.add(mapResultSetToVisit(rs));
+        try {
+            dbManager.read(conn -> {
+                PreparedStatement pstmt;
+                int index = 1;
+                if (match != null) {
+                    pstmt = conn.prepare(dayRange ? SEARCH_BY_DAY_RANGE_SQL : SEARCH_SQL);
+                    pstmt.setString(index++, match);
+                } else {
+                    pstmt = conn.prepare(dayRange ? SELECT_BY_DAY_RANGE_SQL : SELECT_RECENT_SQL);
                 }
-            }
+                if (dayRange) {
+                    pstmt.setLong(index++, fromDay);
+                    pstmt.setLong(index++, toDay);
+                }
+                pstmt.setInt(index, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        VisitModel visit = mapResultSetToVisit(rs);
+                        if (match != null) {
+                            visit.setNotesSnippet(rs.getString("notes_snippet"));
+                        }
+                        visits.add(visit);
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return visits;
     }
 
+    /**
+     * Insert a visit and set its generated id. In write-behind mode the visit is only
+     * journaled here and its id is set when the group commit inserts it.
+     */
     public void addVisit(VisitModel visit) {
+        if (journal != null) {
+            try {
+                journal.append(visit);
+                return;
+            } catch (IOException e) {
+                // Fall back to a direct insert
+                e.printStackTrace();
+            }
+        }
         String now = LocalDateTime.now().format(DATETIME_FORMATTER);
-        String sql = "INSERT INTO visits (child_id, visit_date, weight_kg, height_cm, muac_mm, risk_level, notes, created_at, updated_at, entered_by, deleted) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
         
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            pstmt.setInt(1, visit.getChildId());
-            pstmt.setString(2, visit.getVisitDate());
-            pstmt.setDouble(3, visit.getWeightKg());
-            pstmt.setDouble(4, visit.getHeightCm());
-            pstmt.setInt(5, visit.getMuacMm());
-            pstmt.setString(6, visit.getRiskLevel() != null ? visit.getRiskLevel() : "N/A");
-            pstmt.setString(7, visit.getNotes());
-            pstmt.setString(8, now);
-            pstmt.setString(9, now);
-            if (visit.getEnteredBy() != null) {
-                pstmt.setInt(10, visit.getEnteredBy());
-            } else {
-                pstmt.setNull(10, java.sql.Types.INTEGER);
-            }
-            pstmt.executeUpdate();
-            
-            try (ResultSet keys = pstmt.getGeneratedKeys()) {
-                if (keys.next()) {
-                    visit.setVisitId(keys.getInt(1));
+        try {
+            // Insert and last_visit update commit together on the writer connection
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+                bindInsert(pstmt, visit, now);
+                pstmt.executeUpdate();
+                
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        visit.setVisitId(keys.getInt(1));
+                    }
                 }
-            }
-            
-            updateChildLastVisit(visit.getChildId(), visit.getVisitDate());
+                updateChildLastVisit(conn, visit.getChildId(), visit.getVisitDate());
+                ChildStatusDAO.evaluatePending(conn);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    public void updateVisit(VisitModel visit) {
+    /**
+     * Insert many visits in one transaction using JDBC batches, then refresh last_visit once
+     * for each affected child. Generated ids are set on the models and returned in list order.
+     */
+    public List<Integer> addAll(List<VisitModel> visits) {
+        List<Integer> ids = new ArrayList<>(visits.size());
+        if (visits.isEmpty()) {
+            return ids;
+        }
+        // Journaled visits go first so ids stay in entry order
+        syncJournal();
         String now = LocalDateTime.now().format(DATETIME_FORMATTER);
-        String sql = "UPDATE visits SET child_id = ?, visit_date = ?, weight_kg = ?, height_cm = ?, muac_mm = ?, risk_level = ?, notes = ?, updated_at = ? WHERE visit_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, visit.getChildId());
-            pstmt.setString(2, visit.getVisitDate());
-            pstmt.setDouble(3, visit.getWeightKg());
-            pstmt.setDouble(4, visit.getHeightCm());
-            pstmt.setInt(5, visit.getMuacMm());
-            pstmt.setString(6, visit.getRiskLevel() != null ? visit.getRiskLevel() : "N/A");
-            pstmt.setString(7, visit.getNotes());
-            pstmt.setString(8, now);
-            pstmt.setInt(9, visit.getVisitId());
-            pstmt.executeUpdate();
-            
-            updateChildLastVisitFromAllVisits(visit.getChildId());
+
+        try {
+            ids.addAll(dbManager.write(conn -> insertAll(conn, visits, now)));
         } catch (SQLException e) {
             e.printStackTrace();
+            ids.clear();
         }
+        return ids;
     }
 
-    public void deleteVisit(int visitId) {
-        String sql = "UPDATE visits SET deleted = 1 WHERE visit_id = ?";
-        
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, visitId);
-            pstmt.executeUpdate();
-            
-            VisitModel visit = getById(visitId);
-            if (visit != null) {
-                updateChildLastVisitFromAllVisits(visit.getChildId());
+    /**
+     * Batch insert on the writer connection, inside the caller's transaction.
+     */
+    static List<Integer> insertAll(PooledConnection conn, List<VisitModel> visits, String now) throws SQLException {
+        List<Integer> ids = new ArrayList<>(visits.size());
+        PreparedStatement pstmt = conn.prepare(INSERT_SQL);
+        for (int start = 0; start < visits.size(); start += DatabaseManager.BATCH_SIZE) {
+            List<VisitModel> chunk = visits.subList(start, Math.min(start + DatabaseManager.BATCH_SIZE, visits.size()));
+            for (VisitModel visit : chunk) {
+                bindInsert(pstmt, visit, now);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+
+            // Only the writer connection inserts, so a chunk's AUTOINCREMENT ids are consecutive
+            int id = (int) conn.lastInsertRowId() - chunk.size() + 1;
+            for (VisitModel visit : chunk) {
+                visit.setVisitId(id);
+                ids.add(id++);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
+
+        PreparedStatement lastVisitStmt = conn.prepare(UPDATE_CHILDREN_LAST_VISIT_SQL);
+        lastVisitStmt.setInt(1, ids.get(0));
+        lastVisitStmt.setInt(2, ids.get(ids.size() - 1));
+        lastVisitStmt.executeUpdate();
+        ChildStatusDAO.evaluatePending(conn);
+        return ids;
     }
 
-    private void updateChildLastVisit(int childId, String visitDate) {
-        String sql = "UPDATE children SET last_visit = ? WHERE id = ?";
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setString(1, visitDate);
-            pstmt.setInt(2, childId);
-            pstmt.executeUpdate();
+    public void updateVisit(VisitModel visit) {
+        syncJournal();
+        String now = LocalDateTime.now().format(DATETIME_FORMATTER);
+        
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(UPDATE_SQL);
+                bindVisit(pstmt, visit);
+                pstmt.setString(8, now);
+                ChildDAO.setEpochDay(pstmt, 9, visit.getVisitDate());
+                pstmt.setInt(10, visit.getVisitId());
+                pstmt.executeUpdate();
+                updateChildLastVisitFromAllVisits(conn, visit.getChildId());
+                ChildStatusDAO.evaluatePending(conn);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
-    private void updateChildLastVisitFromAllVisits(int childId) {
-        String sql = "SELECT MAX(visit_date) as last_visit FROM visits WHERE child_id = ? AND deleted = 0";
-        try (PreparedStatement pstmt = dbManager.getConnection().prepareStatement(sql)) {
-            pstmt.setInt(1, childId);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    String lastVisit = rs.getString("last_visit");
-                    updateChildLastVisit(childId, lastVisit);
+    public void deleteVisit(int visitId) {
+        syncJournal();
+        try {
+            dbManager.write(conn -> {
+                PreparedStatement pstmt = conn.prepare(SOFT_DELETE_SQL);
+                pstmt.setInt(1, visitId);
+                pstmt.executeUpdate();
+                
+                PreparedStatement childStmt = conn.prepare(SELECT_CHILD_ID_SQL);
+                childStmt.setInt(1, visitId);
+                try (ResultSet rs = childStmt.executeQuery()) {
+                    if (rs.next()) {
+                        updateChildLastVisitFromAllVisits(conn, rs.getInt("child_id"));
+                    }
                 }
-            }
+                ChildStatusDAO.evaluatePending(conn);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    // Binds columns 1-7 shared by INSERT_SQL and UPDATE_SQL
+    private static void bindVisit(PreparedStatement pstmt, VisitModel visit) throws SQLException {
+        pstmt.setInt(1, visit.getChildId());
+        pstmt.setString(2, visit.getVisitDate());
+        pstmt.setDouble(3, visit.getWeightKg());
+        pstmt.setDouble(4, visit.getHeightCm());
+        pstmt.setInt(5, visit.getMuacMm());
+        pstmt.setString(6, visit.getRiskLevel() != null ? visit.getRiskLevel() : "N/A");
+        pstmt.setString(7, visit.getNotes());
+    }
+
+    // Journaled visits already carry the time they were entered
+    private static void bindInsert(PreparedStatement pstmt, VisitModel visit, String now) throws SQLException {
+        bindVisit(pstmt, visit);
+        pstmt.setString(8, visit.getCreatedAt() != null ? visit.getCreatedAt() : now);
+        pstmt.setString(9, visit.getUpdatedAt() != null ? visit.getUpdatedAt() : now);
+        if (visit.getEnteredBy() != null) {
+            pstmt.setInt(10, visit.getEnteredBy());
+        } else {
+            pstmt.setNull(10, java.sql.Types.INTEGER);
+        }
+        ChildDAO.setEpochDay(pstmt, 11, visit.getVisitDate());
+    }
+
+    private void updateChildLastVisit(PooledConnection conn, int childId, String visitDate) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(UPDATE_CHILD_LAST_VISIT_SQL);
+        pstmt.setString(1, visitDate);
+        ChildDAO.setEpochDay(pstmt, 2, visitDate);
+        pstmt.setInt(3, childId);
+        pstmt.executeUpdate();
+    }
+
+    private void updateChildLastVisitFromAllVisits(PooledConnection conn, int childId) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(SELECT_LAST_VISIT_DATE_SQL);
+        pstmt.setInt(1, childId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                String lastVisit = rs.getString("last_visit");
+                updateChildLastVisit(conn, childId, lastVisit);
+            }
+        }
+    }
+
+    // Read-your-writes for write-behind mode: commit journaled visits before reading
+    private void syncJournal() {
+        if (journal != null) {
+            journal.sync();
+        }
+    }
+
+    private void syncJournal(int childId) {
+        if (journal != null) {
+            journal.sync(childId);
+        }
+    }
+
     public void refreshVisits() {
         loadVisits();
     }
@@ -250,6 +617,20 @@ public class VisitDAO {
             visit.setEnteredBy(enteredBy);
         }
         visit.setDeleted(rs.getInt("deleted") == 1);
+        int visitDay = rs.getInt("visit_day");
+        if (!rs.wasNull()) {
+            visit.setVisitEpochDay(visitDay);
+        }
         return visit;
     }
+
+    // Column order of SELECT_MEASUREMENT
+    private static VisitMeasurement mapMeasurement(ResultSet rs) throws SQLException {
+        int visitDay = rs.getInt(4);
+        if (rs.wasNull()) {
+            visitDay = VisitMeasurement.NO_DAY;
+        }
+        return new VisitMeasurement(rs.getInt(1), rs.getInt(2), rs.getString(3), visitDay,
+                rs.getDouble(5), rs.getDouble(6), rs.getInt(7), rs.getString(8));
+    }
 }
@@ -0,0 +1,319 @@
+package com.example.nutrimap.dao;
+
+import com.example.nutrimap.model.VisitModel;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind journal for new visits, enabled with -Dnutrimap.visits.writeBehind=true.
+ *
+ * VisitDAO.addVisit appends the visit to a journal file next to the database and returns
+ * once the append is on disk. A background thread then inserts everything pending in one
+ * transaction (group commit) every FLUSH_INTERVAL_MS (-Dnutrimap.visits.flushIntervalMs,
+ * default 1000), or as soon as MAX_BATCH visits are
+ * waiting. Each entry carries a sequence number; the highest one inserted is committed in
+ * the same transaction (journal_state, schema migration 8), so replaying the journal after
+ * a crash never inserts a visit twice.
+ *
+ * Reads through VisitDAO call {@link #sync()} or {@link #sync(int)} first, so a session always
+ * sees its own visits. Child lists and dashboard counts catch up at the next flush. A sync made
+ * inside a write (e.g. VisitDAO.addAll from an import batch) cannot wait for the flusher, whose
+ * write would queue behind it; it inserts the pending visits into the current transaction.
+ * Which entries are inserted is always decided from journal_state as the writing transaction
+ * sees it, so the flusher then skips them, and re-inserts them if that transaction rolls back.
+ */
+final class VisitJournal {
+    private static final boolean ENABLED = Boolean.getBoolean("nutrimap.visits.writeBehind");
+    private static final long FLUSH_INTERVAL_MS = Long.getLong("nutrimap.visits.flushIntervalMs", 1000);
+    private static final int MAX_BATCH = 50;
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Gson GSON = new Gson();
+
+    static final String SELECT_APPLIED_SQL = "SELECT applied_seq FROM journal_state WHERE name = 'visits'";
+
+    static final String UPDATE_APPLIED_SQL = "INSERT OR REPLACE INTO journal_state (name, applied_seq) VALUES ('visits', ?)";
+
+    private static VisitJournal instance;
+
+    private final DatabaseManager db;
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    // Appended but not yet committed, in sequence order; guarded by this
+    private final List<Entry> pending = new ArrayList<>();
+    private long lastSeq;
+
+    private VisitJournal(DatabaseManager db, Path file) throws IOException, SQLException {
+        this.db = db;
+        this.file = file;
+        long appliedSeq = db.read(VisitJournal::readAppliedSeq);
+        lastSeq = appliedSeq;
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                Entry entry = parse(line);
+                if (entry != null) {
+                    lastSeq = Math.max(lastSeq, entry.seq);
+                    if (entry.seq > appliedSeq) {
+                        pending.add(entry);
+                    }
+                }
+            }
+        }
+        // Drop applied entries and any torn final line before appending again
+        rewrite();
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        if (!pending.isEmpty()) {
+            int replayed = pending.size();
+            flush();
+            System.out.println("Replayed " + replayed + " journaled visits from " + file);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nutrimap-visit-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The journal, replaying it on first use, or null when write-behind is disabled or the
+     * journal cannot be opened (visits are then written directly).
+     */
+    static synchronized VisitJournal getInstance() {
+        if (ENABLED && instance == null) {
+            try {
+                Path file = Paths.get(DatabaseManager.getDatabasePath() + "-visits.journal");
+                instance = new VisitJournal(DatabaseManager.getInstance(), file);
+            } catch (IOException | SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Flush whatever is pending and close the journal. Called by DatabaseManager.closeConnection.
+     */
+    static synchronized void shutdown() {
+        if (instance != null) {
+            instance.close();
+            instance = null;
+        }
+    }
+
+    /**
+     * Make the visit durable in the journal; it is inserted at the next group commit.
+     * Its visit id stays 0 until then.
+     */
+    synchronized void append(VisitModel visit) throws IOException {
+        String now = LocalDateTime.now().format(DATETIME_FORMATTER);
+        visit.setCreatedAt(now);
+        visit.setUpdatedAt(now);
+
+        Entry entry = new Entry(lastSeq + 1, visit);
+        ByteBuffer buffer = ByteBuffer.wrap(toLine(entry).getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+
+        lastSeq = entry.seq;
+        pending.add(entry);
+        if (pending.size() >= MAX_BATCH) {
+            flusher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Commit everything pending before returning, so a following read sees it.
+     */
+    void sync() {
+        if (hasPending(-1)) {
+            awaitFlush();
+        }
+    }
+
+    /**
+     * Commit pending visits before returning if any of them belong to the child.
+     */
+    void sync(int childId) {
+        if (hasPending(childId)) {
+            awaitFlush();
+        }
+    }
+
+    private synchronized boolean hasPending(int childId) {
+        for (Entry entry : pending) {
+            if (childId < 0 || entry.visit.getChildId() == childId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void awaitFlush() {
+        if (db.isWriterThread()) {
+            try {
+                db.write(this::applyPending);
+            } catch (SQLException e) {
+                // Fail the enclosing transaction rather than let it commit without the journaled visits
+                throw new IllegalStateException("Could not insert journaled visits", e);
+            }
+            return;
+        }
+        try {
+            flusher.submit(this::flush).get();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Runs on the flusher thread (or during replay, before it starts)
+    private void flush() {
+        if (!hasPending(-1)) {
+            return;
+        }
+        long appliedSeq;
+        try {
+            appliedSeq = db.write(this::applyPending);
+        } catch (SQLException e) {
+            // Entries stay pending and are retried at the next flush
+            e.printStackTrace();
+            return;
+        }
+
+        // Committed now, including anything a sync inside an earlier write inserted
+        synchronized (this) {
+            pending.removeIf(entry -> entry.seq <= appliedSeq);
+            if (pending.isEmpty()) {
+                try {
+                    channel.truncate(0);
+                } catch (IOException e) {
+                    // Harmless: applied entries are skipped on replay
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /**
+     * Insert the pending entries after the applied sequence number this transaction sees and
+     * record the new one. Runs on the writer connection.
+     *
+     * @return the applied sequence number once the transaction commits
+     */
+    private long applyPending(PooledConnection conn) throws SQLException {
+        long appliedSeq = readAppliedSeq(conn);
+        List<VisitModel> visits = new ArrayList<>();
+        long lastApplied = appliedSeq;
+        synchronized (this) {
+            for (Entry entry : pending) {
+                if (entry.seq > appliedSeq) {
+                    visits.add(entry.visit);
+                    lastApplied = entry.seq;
+                }
+            }
+        }
+        if (visits.isEmpty()) {
+            return appliedSeq;
+        }
+
+        VisitDAO.insertAll(conn, visits, LocalDateTime.now().format(DATETIME_FORMATTER));
+        PreparedStatement pstmt = conn.prepare(UPDATE_APPLIED_SQL);
+        pstmt.setLong(1, lastApplied);
+        pstmt.executeUpdate();
+        return lastApplied;
+    }
+
+    private void close() {
+        awaitFlush();
+        flusher.shutdown();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static long readAppliedSeq(PooledConnection conn) throws SQLException {
+        PreparedStatement pstmt = conn.prepare(SELECT_APPLIED_SQL);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    private void rewrite() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : pending) {
+            lines.append(toLine(entry));
+        }
+        Path temp = Paths.get(file + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // One JSON object per line: {"seq": 42, "visit": {...}}
+    private static String toLine(Entry entry) {
+        JsonObject json = new JsonObject();
+        json.addProperty("seq", entry.seq);
+        json.add("visit", GSON.toJsonTree(entry.visit));
+        return json + "\n";
+    }
+
+    private static Entry parse(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        try {
+            JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            return new Entry(json.get("seq").getAsLong(), GSON.fromJson(json.get("visit"), VisitModel.class));
+        } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+            System.err.println("Skipping unreadable visit journal entry: " + line);
+            return null;
+        }
+    }
+
+    private static class Entry {
+        private final long seq;
+        private final VisitModel visit;
+
+        Entry(long seq, VisitModel visit) {
+            this.seq = seq;
+            this.visit = visit;
+        }
+    }
+}
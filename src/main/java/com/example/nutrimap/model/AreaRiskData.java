@@ -0,0 +1,37 @@
+package com.example.nutrimap.model;
+
+import com.example.nutrimap.util.RiskLevel;
+
+/**
+ * Children and their latest-visit risk levels in one district, for the dashboard area table.
+ */
+public class AreaRiskData {
+    private final String area;
+    private int childrenCount;
+    private int highCount;
+    private int mediumCount;
+    private int lowCount;
+
+    public AreaRiskData(String area) {
+        this.area = area;
+    }
+
+    /**
+     * Count one child with the given latest-visit risk level (NA when it has no visits).
+     */
+    public void addChild(RiskLevel riskLevel) {
+        childrenCount++;
+        switch (riskLevel) {
+            case HIGH: highCount++; break;
+            case MEDIUM: mediumCount++; break;
+            case LOW: lowCount++; break;
+            default: break;
+        }
+    }
+
+    public String getArea() { return area; }
+    public int getChildrenCount() { return childrenCount; }
+    public int getHighCount() { return highCount; }
+    public int getMediumCount() { return mediumCount; }
+    public int getLowCount() { return lowCount; }
+}
@@ -1,8 +1,11 @@
 package com.example.nutrimap.model;
 
+import com.example.nutrimap.util.EpochDays;
+import com.example.nutrimap.util.NutritionRiskCalculator;
+import com.example.nutrimap.util.RiskLevel;
+
 import java.time.LocalDate;
 import java.time.Period;
-import java.time.format.DateTimeFormatter;
 
 public class ChildModel {
     private int id;
@@ -19,6 +22,15 @@ public class ChildModel {
     private String lastVisit;
     private String gender;
     private String dateOfBirth;
+    // Parsed once from dateOfBirth; EpochDays.NO_DAY when missing or invalid
+    private int birthEpochDay = EpochDays.NO_DAY;
+    // getAge() and getAgeInMonths() as of ageDay, recomputed when the day changes
+    private int ageDay = EpochDays.NO_DAY;
+    private String ageText;
+    private int ageMonths;
+    // Latest-visit levels from child_status; null when the child has no visits
+    private String nutritionLevel;
+    private String riskLevel;
 
     public ChildModel() {}
 
@@ -62,30 +74,61 @@ public class ChildModel {
     public void setGender(String gender) { this.gender = gender; }
 
     public String getDateOfBirth() { return dateOfBirth; }
-    public void setDateOfBirth(String dateOfBirth) { this.dateOfBirth = dateOfBirth; }
+    public void setDateOfBirth(String dateOfBirth) {
+        this.dateOfBirth = dateOfBirth;
+        Integer day = EpochDays.parse(dateOfBirth);
+        this.birthEpochDay = day != null ? day : EpochDays.NO_DAY;
+        this.ageDay = EpochDays.NO_DAY;
+    }
+
+    public int getBirthEpochDay() { return birthEpochDay; }
 
     public String getAge() {
-        if (dateOfBirth == null || dateOfBirth.isEmpty()) {
-            return "N/A";
+        refreshAge();
+        return ageText;
+    }
+
+    /**
+     * Age in completed months as of today, or -1 without a valid date of birth.
+     */
+    public int getAgeInMonths() {
+        refreshAge();
+        return ageMonths;
+    }
+
+    // Table cells ask for the age on every render; only the first call of a day computes it
+    private void refreshAge() {
+        int today = EpochDays.today();
+        if (ageDay == today) {
+            return;
+        }
+        ageDay = today;
+        if (birthEpochDay == EpochDays.NO_DAY) {
+            ageText = "N/A";
+            ageMonths = -1;
+            return;
         }
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate dob = LocalDate.parse(dateOfBirth, formatter);
-            LocalDate now = LocalDate.now();
-            Period period = Period.between(dob, now);
-            
-            if (period.getYears() > 0) {
-                return period.getYears() + " years, " + period.getMonths() + " months";
-            } else if (period.getMonths() > 0) {
-                return period.getMonths() + " months, " + period.getDays() + " days";
-            } else {
-                return period.getDays() + " days";
-            }
-        } catch (Exception e) {
-            return "N/A";
+        ageMonths = NutritionRiskCalculator.ageInMonths(birthEpochDay, today);
+        Period period = Period.between(LocalDate.ofEpochDay(birthEpochDay), LocalDate.ofEpochDay(today));
+        if (period.getYears() > 0) {
+            ageText = period.getYears() + " years, " + period.getMonths() + " months";
+        } else if (period.getMonths() > 0) {
+            ageText = period.getMonths() + " months, " + period.getDays() + " days";
+        } else {
+            ageText = period.getDays() + " days";
         }
     }
     
+    public String getNutritionLevel() { return nutritionLevel; }
+    public void setNutritionLevel(String nutritionLevel) { this.nutritionLevel = nutritionLevel; }
+
+    public String getRiskLevel() { return riskLevel; }
+    public void setRiskLevel(String riskLevel) { this.riskLevel = riskLevel; }
+
+    public String getDisplayRiskLevel() {
+        return RiskLevel.fromValue(riskLevel).getDisplay();
+    }
+
     public String getDisplayLastVisit() {
         return (lastVisit == null || lastVisit.isEmpty()) ? "N/A" : lastVisit;
     }
@@ -0,0 +1,36 @@
+package com.example.nutrimap.model;
+
+/**
+ * The few child columns that pickers and dashboard counts need, read by
+ * ChildDAO.getSummaries and forEachSummary instead of a full ChildModel.
+ */
+public class ChildSummary {
+    private final int id;
+    private final String fullName;
+    private final String gender;
+    private final String dateOfBirth;
+    private final String district;
+    // Latest-visit risk from child_status; null when the child has no visits
+    private final String riskLevel;
+
+    public ChildSummary(int id, String fullName, String gender, String dateOfBirth, String district, String riskLevel) {
+        this.id = id;
+        this.fullName = fullName;
+        this.gender = gender;
+        this.dateOfBirth = dateOfBirth;
+        this.district = district;
+        this.riskLevel = riskLevel;
+    }
+
+    public int getId() { return id; }
+
+    public String getFullName() { return fullName; }
+
+    public String getGender() { return gender; }
+
+    public String getDateOfBirth() { return dateOfBirth; }
+
+    public String getDistrict() { return district; }
+
+    public String getRiskLevel() { return riskLevel; }
+}
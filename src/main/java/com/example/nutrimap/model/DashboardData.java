@@ -0,0 +1,37 @@
+package com.example.nutrimap.model;
+
+import com.example.nutrimap.util.RiskLevel;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Everything the home dashboard shows, loaded together by DashboardService.
+ */
+public class DashboardData {
+    private int childCount;
+    private int visitCount;
+    // District -> counts; "Unknown" for children without a district
+    private final Map<String, AreaRiskData> areaData = new HashMap<>();
+    // "MMM yy" label -> visits, oldest month first
+    private final Map<String, Integer> monthlyVisits = new LinkedHashMap<>();
+    // Children per latest-visit risk level, indexed by RiskLevel code
+    private int[] riskCounts = new int[RiskLevel.values().length];
+
+    public DashboardData() {
+    }
+
+    public int getChildCount() { return childCount; }
+    public void setChildCount(int childCount) { this.childCount = childCount; }
+
+    public int getVisitCount() { return visitCount; }
+    public void setVisitCount(int visitCount) { this.visitCount = visitCount; }
+
+    public Map<String, AreaRiskData> getAreaData() { return areaData; }
+
+    public Map<String, Integer> getMonthlyVisits() { return monthlyVisits; }
+
+    public int getRiskCount(RiskLevel level) { return riskCounts[level.getCode()]; }
+    public void setRiskCounts(int[] riskCounts) { this.riskCounts = riskCounts; }
+}
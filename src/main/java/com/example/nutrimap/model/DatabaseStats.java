@@ -0,0 +1,64 @@
+package com.example.nutrimap.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size and fragmentation of the database file, as reported by MaintenanceDAO.getStats().
+ */
+public class DatabaseStats {
+    private long pageSize;
+    private long pageCount;
+    private long freelistCount;
+    private int liveVisits;
+    private int deletedVisits;
+    private int archivedVisits;
+    // Bytes per table or index; empty if SQLite was built without dbstat
+    private final Map<String, Long> tableBytes = new LinkedHashMap<>();
+    private final Map<String, Long> tableUnusedBytes = new LinkedHashMap<>();
+
+    public DatabaseStats() {
+    }
+
+    public long getPageSize() { return pageSize; }
+    public void setPageSize(long pageSize) { this.pageSize = pageSize; }
+
+    public long getPageCount() { return pageCount; }
+    public void setPageCount(long pageCount) { this.pageCount = pageCount; }
+
+    public long getFreelistCount() { return freelistCount; }
+    public void setFreelistCount(long freelistCount) { this.freelistCount = freelistCount; }
+
+    public int getLiveVisits() { return liveVisits; }
+    public void setLiveVisits(int liveVisits) { this.liveVisits = liveVisits; }
+
+    public int getDeletedVisits() { return deletedVisits; }
+    public void setDeletedVisits(int deletedVisits) { this.deletedVisits = deletedVisits; }
+
+    public int getArchivedVisits() { return archivedVisits; }
+    public void setArchivedVisits(int archivedVisits) { this.archivedVisits = archivedVisits; }
+
+    public Map<String, Long> getTableBytes() { return tableBytes; }
+
+    public Map<String, Long> getTableUnusedBytes() { return tableUnusedBytes; }
+
+    public long getFileBytes() {
+        return pageSize * pageCount;
+    }
+
+    /**
+     * Share of the file made of free pages that incremental vacuum can give back.
+     */
+    public double getFreeFraction() {
+        return pageCount > 0 ? (double) freelistCount / pageCount : 0;
+    }
+
+    /**
+     * Share of a table's pages that is unused space inside partly filled pages.
+     */
+    public double getUnusedFraction(String table) {
+        Long bytes = tableBytes.get(table);
+        Long unused = tableUnusedBytes.get(table);
+        return bytes != null && unused != null && bytes > 0 ? (double) unused / bytes : 0;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.nutrimap.model;
+
+/**
+ * Latency and row counts of one named query since startup or the last reset, as reported
+ * by QueryMetrics.getTimings(). Times are in milliseconds.
+ */
+public class QueryTiming {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final double totalMs;
+    private final double p50Ms;
+    private final double p95Ms;
+    private final double p99Ms;
+    private final double maxMs;
+
+    public QueryTiming(String name, long calls, long errors, long rows, double totalMs,
+                       double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+        this.name = name;
+        this.calls = calls;
+        this.errors = errors;
+        this.rows = rows;
+        this.totalMs = totalMs;
+        this.p50Ms = p50Ms;
+        this.p95Ms = p95Ms;
+        this.p99Ms = p99Ms;
+        this.maxMs = maxMs;
+    }
+
+    public String getName() { return name; }
+
+    public long getCalls() { return calls; }
+
+    public long getErrors() { return errors; }
+
+    public long getRows() { return rows; }
+
+    public double getTotalMs() { return totalMs; }
+
+    public double getMeanMs() {
+        return calls > 0 ? totalMs / calls : 0;
+    }
+
+    public double getP50Ms() { return p50Ms; }
+
+    public double getP95Ms() { return p95Ms; }
+
+    public double getP99Ms() { return p99Ms; }
+
+    public double getMaxMs() { return maxMs; }
+}
@@ -0,0 +1,34 @@
+package com.example.nutrimap.model;
+
+/**
+ * One execution that took longer than the slow-query threshold, with its bound parameters.
+ */
+public class SlowQuery {
+    private final String time;
+    private final String name;
+    private final double millis;
+    private final long rows;
+    private final String parameters;
+    private final String sql;
+
+    public SlowQuery(String time, String name, double millis, long rows, String parameters, String sql) {
+        this.time = time;
+        this.name = name;
+        this.millis = millis;
+        this.rows = rows;
+        this.parameters = parameters;
+        this.sql = sql;
+    }
+
+    public String getTime() { return time; }
+
+    public String getName() { return name; }
+
+    public double getMillis() { return millis; }
+
+    public long getRows() { return rows; }
+
+    public String getParameters() { return parameters; }
+
+    public String getSql() { return sql; }
+}
@@ -0,0 +1,49 @@
+package com.example.nutrimap.model;
+
+/**
+ * One visit's date and measurements, without notes, audit columns or the child name.
+ * Read by VisitDAO for trend analysis and aggregation.
+ */
+public class VisitMeasurement {
+    // Visit day when the stored date could not be parsed
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    private final int visitId;
+    private final int childId;
+    private final String visitDate;
+    private final int visitEpochDay;
+    private final double weightKg;
+    private final double heightCm;
+    private final int muacMm;
+    private final String riskLevel;
+
+    public VisitMeasurement(int visitId, int childId, String visitDate, int visitEpochDay,
+                            double weightKg, double heightCm, int muacMm, String riskLevel) {
+        this.visitId = visitId;
+        this.childId = childId;
+        this.visitDate = visitDate;
+        this.visitEpochDay = visitEpochDay;
+        this.weightKg = weightKg;
+        this.heightCm = heightCm;
+        this.muacMm = muacMm;
+        this.riskLevel = riskLevel;
+    }
+
+    public int getVisitId() { return visitId; }
+
+    public int getChildId() { return childId; }
+
+    public String getVisitDate() { return visitDate; }
+
+    public int getVisitEpochDay() { return visitEpochDay; }
+
+    public boolean hasVisitEpochDay() { return visitEpochDay != NO_DAY; }
+
+    public double getWeightKg() { return weightKg; }
+
+    public double getHeightCm() { return heightCm; }
+
+    public int getMuacMm() { return muacMm; }
+
+    public String getRiskLevel() { return riskLevel; }
+}
@@ -14,6 +14,8 @@ public class VisitModel {
     private String updatedAt;
     private Integer enteredBy;
     private boolean deleted;
+    private Integer visitEpochDay;
+    private String notesSnippet;
 
     public VisitModel() {
         this.riskLevel = "N/A";
@@ -58,4 +60,11 @@ public class VisitModel {
 
     public boolean isDeleted() { return deleted; }
     public void setDeleted(boolean deleted) { this.deleted = deleted; }
+
+    public Integer getVisitEpochDay() { return visitEpochDay; }
+    public void setVisitEpochDay(Integer visitEpochDay) { this.visitEpochDay = visitEpochDay; }
+
+    // Highlighted notes fragment, set only on full-text search results
+    public String getNotesSnippet() { return notesSnippet; }
+    public void setNotesSnippet(String notesSnippet) { this.notesSnippet = notesSnippet; }
 }
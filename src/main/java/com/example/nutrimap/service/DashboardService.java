@@ -0,0 +1,92 @@
+package com.example.nutrimap.service;
+
+import com.example.nutrimap.dao.ChildDAO;
+import com.example.nutrimap.dao.ChildStatusDAO;
+import com.example.nutrimap.dao.VisitDAO;
+import com.example.nutrimap.model.AreaRiskData;
+import com.example.nutrimap.model.ChildSummary;
+import com.example.nutrimap.model.DashboardData;
+import com.example.nutrimap.util.RiskLevel;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Loads the home dashboard: child count and district breakdown, visits per month for the
+ * last six months, total visits and latest-visit risk counts. Child summaries and visit days
+ * are streamed and aggregated as they are read, never held in a list. Call it off the FX thread.
+ */
+public class DashboardService {
+    private static final int MONTHS = 6;
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("MMM yy");
+
+    private final ChildDAO childDAO;
+    private final VisitDAO visitDAO;
+    private final ChildStatusDAO childStatusDAO;
+
+    public DashboardService() {
+        this.childDAO = new ChildDAO();
+        this.visitDAO = new VisitDAO();
+        this.childStatusDAO = new ChildStatusDAO();
+    }
+
+    public DashboardData load() {
+        return load(LocalDate.now());
+    }
+
+    /**
+     * Load the dashboard as of the given day, whose month is the last of the six.
+     */
+    public DashboardData load(LocalDate today) {
+        DashboardData data = new DashboardData();
+        int[] childCount = new int[1];
+        childDAO.forEachSummary(child -> {
+            childCount[0]++;
+            addToArea(data.getAreaData(), child);
+        });
+        data.setChildCount(childCount[0]);
+        countVisitsByMonth(today, data.getMonthlyVisits());
+        data.setVisitCount(visitDAO.getCount());
+        data.setRiskCounts(childStatusDAO.getRiskLevelCounts());
+        return data;
+    }
+
+    // Group by district
+    private static void addToArea(Map<String, AreaRiskData> areaData, ChildSummary child) {
+        String district = child.getDistrict();
+        if (district == null || district.isEmpty()) {
+            district = "Unknown";
+        }
+        // Latest-visit risk, joined from child_status
+        areaData.computeIfAbsent(district, AreaRiskData::new).addChild(RiskLevel.fromValue(child.getRiskLevel()));
+    }
+
+    private void countVisitsByMonth(LocalDate today, Map<String, Integer> monthlyVisits) {
+        // Remember each month's first epoch day
+        String[] monthLabels = new String[MONTHS];
+        long[] monthStartDays = new long[MONTHS + 1];
+        int[] monthCounts = new int[MONTHS];
+        for (int i = MONTHS - 1; i >= 0; i--) {
+            LocalDate month = today.minusMonths(i).withDayOfMonth(1);
+            monthLabels[MONTHS - 1 - i] = month.format(MONTH_FORMATTER);
+            monthStartDays[MONTHS - 1 - i] = month.toEpochDay();
+        }
+        monthStartDays[MONTHS] = today.withDayOfMonth(1).plusMonths(1).toEpochDay();
+
+        // Only the six months are read; count using the stored epoch-day column (no date parsing)
+        LocalDate from = LocalDate.ofEpochDay(monthStartDays[0]);
+        LocalDate to = LocalDate.ofEpochDay(monthStartDays[MONTHS] - 1);
+        visitDAO.forEachMeasurement(from, to, visit -> {
+            int visitDay = visit.getVisitEpochDay();
+            int m = MONTHS - 1;
+            while (visitDay < monthStartDays[m]) {
+                m--;
+            }
+            monthCounts[m]++;
+        });
+        for (int i = 0; i < MONTHS; i++) {
+            monthlyVisits.put(monthLabels[i], monthCounts[i]);
+        }
+    }
+}
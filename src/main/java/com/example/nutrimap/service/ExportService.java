@@ -2,6 +2,7 @@ package com.example.nutrimap.service;
 
 import com.example.nutrimap.model.ChildModel;
 import com.example.nutrimap.model.VisitModel;
+import com.example.nutrimap.util.RiskLevel;
 import com.lowagie.text.*;
 import com.lowagie.text.pdf.PdfPCell;
 import com.lowagie.text.pdf.PdfPTable;
@@ -11,28 +12,32 @@ import java.awt.Color;
 import java.io.*;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 
 /**
  * Service for exporting data to CSV and PDF formats.
+ *
+ * Rows are taken from an Iterable and written as they arrive, so an export fed from a DAO
+ * stream (e.g. childDAO.streamChildren()::iterator) runs in constant memory.
  */
 public class ExportService {
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    // PDF table rows written to the document at a time
+    private static final int PDF_FLUSH_ROWS = 500;
     
     // ==================== CSV EXPORT ====================
     
     /**
      * Export children data to CSV file.
      */
-    public static void exportChildrenToCsv(List<ChildModel> children, File file) throws IOException {
+    public static void exportChildrenToCsv(Iterable<? extends ChildModel> children, File file) throws IOException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
             // Header
-            writer.println("ID,Full Name,Father's Name,Mother's Name,Contact,Gender,Date of Birth,Division,District,Upazila,Union,Branch,Last Visit");
+            writer.println("ID,Full Name,Father's Name,Mother's Name,Contact,Gender,Date of Birth,Division,District,Upazila,Union,Branch,Last Visit,Nutrition Level,Risk Level");
             
             // Data rows
             for (ChildModel child : children) {
-                writer.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
+                writer.printf("%d,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s%n",
                     child.getId(),
                     escapeCsv(child.getFullName()),
                     escapeCsv(child.getFathersName()),
@@ -45,7 +50,9 @@ public class ExportService {
                     escapeCsv(child.getUpazilla()),
                     escapeCsv(child.getUnionName()),
                     escapeCsv(child.getBranchName()),
-                    escapeCsv(child.getLastVisit())
+                    escapeCsv(child.getLastVisit()),
+                    escapeCsv(child.getNutritionLevel()),
+                    escapeCsv(child.getRiskLevel())
                 );
             }
         }
@@ -54,7 +61,7 @@ public class ExportService {
     /**
      * Export visits data to CSV file.
      */
-    public static void exportVisitsToCsv(List<VisitModel> visits, File file) throws IOException {
+    public static void exportVisitsToCsv(Iterable<? extends VisitModel> visits, File file) throws IOException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
             // Header
             writer.println("Visit ID,Child Name,Visit Date,Weight (kg),Height (cm),MUAC (mm),Risk Level,Notes");
@@ -75,7 +82,7 @@ public class ExportService {
         }
     }
     
-    private static String escapeCsv(String value) {
+    static String escapeCsv(String value) {
         if (value == null) return "";
         if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
             return "\"" + value.replace("\"", "\"\"") + "\"";
@@ -88,7 +95,7 @@ public class ExportService {
     /**
      * Export children data to PDF file.
      */
-    public static void exportChildrenToPdf(List<ChildModel> children, File file) throws IOException, DocumentException {
+    public static void exportChildrenToPdf(Iterable<? extends ChildModel> children, File file) throws IOException, DocumentException {
         Document document = new Document(PageSize.A4.rotate());
         PdfWriter.getInstance(document, new FileOutputStream(file));
         document.open();
@@ -114,8 +121,11 @@ public class ExportService {
         
         // Header
         addTableHeader(table, "ID", "Full Name", "Father's Name", "Gender", "District", "DOB", "Risk");
+        table.setHeaderRows(1);
+        table.setComplete(false);
         
         // Data rows
+        int rows = 0;
         for (ChildModel child : children) {
             addTableCell(table, String.valueOf(child.getId()));
             addTableCell(table, child.getFullName());
@@ -123,9 +133,11 @@ public class ExportService {
             addTableCell(table, child.getGender());
             addTableCell(table, child.getDistrict());
             addTableCell(table, child.getDateOfBirth());
-            addTableCell(table, child.getDisplayLastVisit());
+            addTableCell(table, child.getDisplayRiskLevel());
+            flushRows(document, table, ++rows);
         }
         
+        table.setComplete(true);
         document.add(table);
         document.close();
     }
@@ -133,7 +145,7 @@ public class ExportService {
     /**
      * Export visits data to PDF file.
      */
-    public static void exportVisitsToPdf(List<VisitModel> visits, File file) throws IOException, DocumentException {
+    public static void exportVisitsToPdf(Iterable<? extends VisitModel> visits, File file) throws IOException, DocumentException {
         Document document = new Document(PageSize.A4.rotate());
         PdfWriter.getInstance(document, new FileOutputStream(file));
         document.open();
@@ -159,8 +171,11 @@ public class ExportService {
         
         // Header
         addTableHeader(table, "ID", "Child Name", "Visit Date", "Weight", "Height", "MUAC", "Risk");
+        table.setHeaderRows(1);
+        table.setComplete(false);
         
         // Data rows
+        int rows = 0;
         for (VisitModel visit : visits) {
             addTableCell(table, String.valueOf(visit.getVisitId()));
             addTableCell(table, visit.getChildName());
@@ -169,12 +184,21 @@ public class ExportService {
             addTableCell(table, String.format("%.1f cm", visit.getHeightCm()));
             addTableCell(table, visit.getMuacMm() + " mm");
             addRiskCell(table, visit.getRiskLevel());
+            flushRows(document, table, ++rows);
         }
         
+        table.setComplete(true);
         document.add(table);
         document.close();
     }
     
+    // An incomplete table added to the document writes its rows so far and drops them
+    private static void flushRows(Document document, PdfPTable table, int rows) throws DocumentException {
+        if (rows % PDF_FLUSH_ROWS == 0) {
+            document.add(table);
+        }
+    }
+    
     private static void addTableHeader(PdfPTable table, String... headers) {
         Font headerFont = new Font(Font.HELVETICA, 10, Font.BOLD, Color.WHITE);
         for (String header : headers) {
@@ -200,16 +224,21 @@ public class ExportService {
         cell.setHorizontalAlignment(Element.ALIGN_CENTER);
         
         // Set background color based on risk level
-        if ("High".equalsIgnoreCase(riskLevel)) {
-            cell.setBackgroundColor(new Color(231, 76, 60)); // Red
-        } else if ("Medium".equalsIgnoreCase(riskLevel)) {
-            cell.setBackgroundColor(new Color(243, 156, 18)); // Orange
-        } else if ("Low".equalsIgnoreCase(riskLevel)) {
-            cell.setBackgroundColor(new Color(39, 174, 96)); // Green
-        } else {
-            cell.setBackgroundColor(new Color(149, 165, 166)); // Gray
-            cellFont = new Font(Font.HELVETICA, 9);
-            cell.setPhrase(new Phrase(riskLevel != null ? riskLevel : "N/A", cellFont));
+        switch (RiskLevel.fromValue(riskLevel)) {
+            case HIGH:
+                cell.setBackgroundColor(new Color(231, 76, 60)); // Red
+                break;
+            case MEDIUM:
+                cell.setBackgroundColor(new Color(243, 156, 18)); // Orange
+                break;
+            case LOW:
+                cell.setBackgroundColor(new Color(39, 174, 96)); // Green
+                break;
+            default:
+                cell.setBackgroundColor(new Color(149, 165, 166)); // Gray
+                cellFont = new Font(Font.HELVETICA, 9);
+                cell.setPhrase(new Phrase(riskLevel != null ? riskLevel : "N/A", cellFont));
+                break;
         }
         
         table.addCell(cell);
@@ -8,6 +8,8 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.reflect.Type;
@@ -15,6 +17,7 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -24,13 +27,18 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Service for fetching JSON data from GitHub raw URLs.
  * Caches data in memory to avoid repeated HTTP calls.
+ * Falls back to the copies bundled under /data when GitHub cannot be reached; offline tools
+ * such as PopulationGenerator call {@link #useBundledData()} to skip the network entirely.
+ * -Dnutrimap.gazetteer.url=<base URL ending in /> fetches the same files from a mirror instead.
  */
 public class GitHubJsonDataService {
-    private static final String BASE_URL = "https://raw.githubusercontent.com/suaib022/NutriMap-Dekstop-Version/main/src/main/resources/data/";
+    private static final String BASE_URL = System.getProperty("nutrimap.gazetteer.url",
+            "https://raw.githubusercontent.com/suaib022/NutriMap-Dekstop-Version/main/src/main/resources/data/");
     private static GitHubJsonDataService instance;
     
     private final HttpClient httpClient;
     private final Gson gson;
+    private volatile boolean bundledOnly;
     
     // In-memory cache
     private List<DivisionModel> divisionsCache;
@@ -53,7 +61,17 @@ public class GitHubJsonDataService {
         return instance;
     }
     
+    /**
+     * Read every file from the bundled copy from now on, without contacting GitHub.
+     */
+    public void useBundledData() {
+        bundledOnly = true;
+    }
+    
     private String fetchJson(String filename) {
+        if (bundledOnly) {
+            return readBundled(filename);
+        }
         try {
             HttpRequest request = HttpRequest.newBuilder()
                     .uri(URI.create(BASE_URL + filename))
@@ -67,10 +85,23 @@ public class GitHubJsonDataService {
                 return response.body();
             } else {
                 System.err.println("Failed to fetch " + filename + ": HTTP " + response.statusCode());
-                return null;
+                return readBundled(filename);
             }
         } catch (Exception e) {
             System.err.println("Error fetching " + filename + ": " + e.getMessage());
+            e.printStackTrace();
+            return readBundled(filename);
+        }
+    }
+    
+    private String readBundled(String filename) {
+        try (InputStream in = GitHubJsonDataService.class.getResourceAsStream("/data/" + filename)) {
+            if (in == null) {
+                System.err.println("No bundled copy of " + filename);
+                return null;
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
             e.printStackTrace();
             return null;
         }
@@ -0,0 +1,735 @@
+package com.example.nutrimap.service;
+
+import com.example.nutrimap.dao.ChildDAO;
+import com.example.nutrimap.dao.DatabaseManager;
+import com.example.nutrimap.dao.VisitDAO;
+import com.example.nutrimap.model.ChildModel;
+import com.example.nutrimap.model.ChildSummary;
+import com.example.nutrimap.model.VisitMeasurement;
+import com.example.nutrimap.model.VisitModel;
+import com.example.nutrimap.util.EpochDays;
+import com.example.nutrimap.util.NutritionRiskCalculator;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Service for importing children and visits from CSV files.
+ *
+ * Three layouts are recognised from the header row:
+ * - CHILDREN: the layout written by ExportService.exportChildrenToCsv (the ID column is ignored)
+ * - VISITS: visit rows with a "Child ID" column and the ExportService visit columns
+ * - WHO_ANTHRO: WHO Anthro survey rows (sex, dob, dov, weight, height, muac in cm); rows
+ *   without a child ID create a new child and its visit together
+ *
+ * A worker thread parses and validates rows and hands batches to the calling thread through a
+ * bounded queue, so memory stays flat however large the file is. Each batch is written in one
+ * writer transaction. Rows that fail validation are written to a rejected-rows CSV with the
+ * reason. Call importCsv from a background thread, never the FX thread.
+ */
+public class ImportService {
+
+    public enum Layout { CHILDREN, VISITS, WHO_ANTHRO }
+
+    /**
+     * Receives running totals after every committed batch (on the importing thread).
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(ImportResult progress);
+    }
+
+    // Rows per writer transaction
+    private static final int BATCH_SIZE = 1000;
+    // Parsed batches waiting for the writer; bounds memory when the database is the bottleneck
+    private static final int QUEUE_CAPACITY = 4;
+    // Children whose birth date, gender and previous measurements are kept while importing visits
+    private static final int CHILD_CACHE_SIZE = 10000;
+    // WHO flags |WHZ| > 5 as a biologically implausible measurement
+    private static final double IMPLAUSIBLE_ZSCORE = 5.0;
+
+    private static final List<ImportRow> END_OF_INPUT = new ArrayList<>();
+
+    private final DatabaseManager dbManager = DatabaseManager.getInstance();
+    private ChildDAO childDAO;
+    private VisitDAO visitDAO;
+    private volatile boolean cancelled;
+
+    /**
+     * Import a CSV file, writing rejected rows to rejectedFile.
+     *
+     * @return the final counts; rows imported before a cancel or failure stay committed
+     */
+    public ImportResult importCsv(File csvFile, File rejectedFile, ProgressListener listener) throws IOException {
+        cancelled = false;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8);
+             PrintWriter rejectedWriter = new PrintWriter(Files.newBufferedWriter(rejectedFile.toPath(), StandardCharsets.UTF_8))) {
+            CsvReader csv = new CsvReader(reader);
+            String[] header = csv.next();
+            if (header == null) {
+                throw new IOException("The CSV file is empty");
+            }
+            if (header.length > 0 && header[0].startsWith("\uFEFF")) {
+                header[0] = header[0].substring(1);
+            }
+
+            Columns columns = new Columns(header);
+            ImportResult result = new ImportResult(columns.detectLayout());
+            RejectLog rejects = new RejectLog(rejectedWriter, header, result);
+            childDAO = new ChildDAO();
+            visitDAO = new VisitDAO();
+
+            BlockingQueue<List<ImportRow>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            AtomicReference<Exception> parseError = new AtomicReference<>();
+            Thread parser = new Thread(() -> parse(csv, columns, result, queue, rejects, parseError), "nutrimap-import-parser");
+            parser.setDaemon(true);
+            parser.start();
+
+            boolean finished = false;
+            try {
+                while (true) {
+                    List<ImportRow> batch = queue.take();
+                    if (batch == END_OF_INPUT) {
+                        break;
+                    }
+                    writeBatch(batch, rejects, result);
+                    if (listener != null) {
+                        listener.onProgress(result);
+                    }
+                }
+                parser.join();
+                finished = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import interrupted after " + result.getImported() + " rows");
+            } finally {
+                // Also when writing a batch or the listener throws
+                if (!finished) {
+                    stopParser(parser, queue);
+                }
+            }
+
+            Exception error = parseError.get();
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error != null) {
+                throw new IOException("Import failed after " + result.getImported() + " rows", error);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Stop an import in progress. Batches already committed are kept.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Stop the parser and wait for it, emptying the queue so it is never left blocked on a full
+    // queue holding parsed batches, nor still reading when the file is closed
+    private void stopParser(Thread parser, BlockingQueue<List<ImportRow>> queue) {
+        cancelled = true;
+        parser.interrupt();
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (parser.isAlive()) {
+                queue.clear();
+                parser.join(100);
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+        } finally {
+            queue.clear();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Default rejected-rows file next to the imported file, e.g. visits.csv -> visits_rejected.csv.
+     */
+    public static File defaultRejectedFile(File csvFile) {
+        String name = csvFile.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new File(csvFile.getAbsoluteFile().getParentFile(), base + "_rejected.csv");
+    }
+
+    // ==================== PARSER THREAD ====================
+
+    private void parse(CsvReader csv, Columns columns, ImportResult result, BlockingQueue<List<ImportRow>> queue,
+                       RejectLog rejects, AtomicReference<Exception> parseError) {
+        Map<Integer, ChildContext> childCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, ChildContext> eldest) {
+                return size() > CHILD_CACHE_SIZE;
+            }
+        };
+        List<ImportRow> batch = new ArrayList<>(BATCH_SIZE);
+
+        try {
+            String[] fields;
+            while (!cancelled && (fields = csv.next()) != null) {
+                if (fields.length == 1 && fields[0].isBlank()) {
+                    continue;
+                }
+                result.rowsRead.incrementAndGet();
+                try {
+                    batch.add(parseRow(result.getLayout(), columns, fields, csv.getRecordLine(), childCache));
+                } catch (InvalidRowException e) {
+                    rejects.reject(csv.getRecordLine(), fields, e.getMessage());
+                }
+                if (batch.size() >= BATCH_SIZE) {
+                    queue.put(batch);
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!batch.isEmpty()) {
+                queue.put(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (IOException | RuntimeException e) {
+            parseError.set(e);
+        }
+
+        try {
+            queue.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ImportRow parseRow(Layout layout, Columns columns, String[] fields, long line,
+                               Map<Integer, ChildContext> childCache) throws InvalidRowException {
+        switch (layout) {
+            case CHILDREN:
+                return new ImportRow(line, fields, parseChild(columns, fields), null);
+            case VISITS:
+                return parseVisit(columns, fields, line, childCache);
+            default:
+                return parseAnthro(columns, fields, line, childCache);
+        }
+    }
+
+    private ChildModel parseChild(Columns columns, String[] fields) throws InvalidRowException {
+        ChildModel child = new ChildModel();
+        child.setFullName(require(columns.get(fields, "fullname", "name", "childname"), "Full name is missing"));
+        child.setFathersName(columns.get(fields, "fathersname", "fathername"));
+        child.setMothersName(columns.get(fields, "mothersname", "mothername"));
+        child.setContactNumber(columns.get(fields, "contact", "contactnumber", "phone"));
+        child.setDivision(columns.get(fields, "division"));
+        child.setDistrict(columns.get(fields, "district"));
+        child.setUpazilla(columns.get(fields, "upazila", "upazilla"));
+        child.setUnionName(columns.get(fields, "union", "unionname"));
+        child.setBranchId(columns.get(fields, "branchid"));
+        child.setBranchName(columns.get(fields, "branch", "branchname"));
+        child.setGender(parseGender(columns.get(fields, "gender", "sex")));
+
+        String dob = normalizeDate(require(columns.get(fields, "dateofbirth", "dob", "birthdate"), "Date of birth is missing"));
+        if (dob == null) {
+            throw new InvalidRowException("Date of birth is not a valid date");
+        }
+        if (NutritionRiskCalculator.calculateAgeInMonths(dob) < 0) {
+            throw new InvalidRowException("Date of birth is in the future");
+        }
+        child.setDateOfBirth(dob);
+        return child;
+    }
+
+    private ImportRow parseVisit(Columns columns, String[] fields, long line,
+                                 Map<Integer, ChildContext> childCache) throws InvalidRowException {
+        ChildContext context = lookupChild(columns, fields, childCache);
+
+        VisitModel visit = new VisitModel();
+        visit.setVisitDate(parseVisitDate(columns.get(fields, "visitdate", "date", "dov")));
+        visit.setWeightKg(parseMeasurement(columns.get(fields, "weightkg", "weight"), "Weight", 0.5, 60));
+        visit.setHeightCm(parseMeasurement(columns.get(fields, "heightcm", "height"), "Height", 35, 150));
+        String muacCm = columns.get(fields, "muaccm");
+        visit.setMuacMm(muacCm != null
+            ? parseMuacCm(muacCm)
+            : parseMuacMm(columns.get(fields, "muacmm", "muac")));
+        visit.setNotes(columns.get(fields, "notes"));
+
+        evaluate(visit, context.dateOfBirth, context.gender, context);
+        return new ImportRow(line, fields, null, visit);
+    }
+
+    private ImportRow parseAnthro(Columns columns, String[] fields, long line,
+                                  Map<Integer, ChildContext> childCache) throws InvalidRowException {
+        String visitDate = parseVisitDate(columns.get(fields, "dov", "visitdate", "date"));
+
+        VisitModel visit = new VisitModel();
+        visit.setVisitDate(visitDate);
+        visit.setWeightKg(parseMeasurement(columns.get(fields, "weight", "weightkg"), "Weight", 0.5, 60));
+        visit.setHeightCm(parseMeasurement(columns.get(fields, "height", "heightcm", "lenhei"), "Height", 35, 150));
+        // WHO Anthro records MUAC in centimetres
+        visit.setMuacMm(parseMuacCm(columns.get(fields, "muac", "muaccm")));
+        if ("y".equalsIgnoreCase(columns.get(fields, "oedema"))) {
+            visit.setNotes("Bilateral oedema reported");
+        }
+
+        if (columns.get(fields, "childid") != null) {
+            ChildContext context = lookupChild(columns, fields, childCache);
+            evaluate(visit, context.dateOfBirth, context.gender, context);
+            return new ImportRow(line, fields, null, visit);
+        }
+
+        ChildModel child = new ChildModel();
+        String surveyId = columns.get(fields, "id", "surveyid");
+        String name = columns.get(fields, "name", "fullname", "childname");
+        child.setFullName(name != null ? name : "Survey child " + (surveyId != null ? surveyId : String.valueOf(line)));
+        child.setGender(parseGender(require(columns.get(fields, "sex", "gender"), "Sex is missing")));
+        child.setDistrict(columns.get(fields, "district"));
+        child.setUpazilla(columns.get(fields, "upazila", "upazilla"));
+        child.setUnionName(columns.get(fields, "union", "unionname"));
+        child.setBranchName(columns.get(fields, "branch", "branchname"));
+
+        String dob = normalizeDate(columns.get(fields, "dob", "dateofbirth"));
+        if (dob == null) {
+            String ageMonths = columns.get(fields, "agemons", "agemonths");
+            if (ageMonths == null) {
+                throw new InvalidRowException("Date of birth (or age in months) is missing");
+            }
+            int months = (int) Math.floor(parseNumber(ageMonths, "Age in months"));
+            dob = LocalDate.parse(visitDate).minusMonths(months).toString();
+        }
+        child.setDateOfBirth(dob);
+        child.setLastVisit(visitDate);
+
+        evaluate(visit, dob, child.getGender(), null);
+        return new ImportRow(line, fields, child, visit);
+    }
+
+    private ChildContext lookupChild(Columns columns, String[] fields,
+                                     Map<Integer, ChildContext> childCache) throws InvalidRowException {
+        String idValue = require(columns.get(fields, "childid"), "Child ID is missing");
+        int childId;
+        try {
+            childId = Integer.parseInt(idValue);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException("Child ID is not a number: " + idValue);
+        }
+
+        ChildContext context = childCache.get(childId);
+        if (context == null) {
+            ChildSummary child = childDAO.getSummaryById(childId);
+            if (child == null) {
+                throw new InvalidRowException("No child with ID " + childId);
+            }
+            context = new ChildContext(child.getDateOfBirth(), child.getGender());
+            List<VisitMeasurement> latest = visitDAO.getRecentMeasurements(childId, 1);
+            if (!latest.isEmpty()) {
+                VisitMeasurement visit = latest.get(0);
+                context.remember(visit.hasVisitEpochDay() ? visit.getVisitEpochDay() : null,
+                        visit.getMuacMm(), visit.getWeightKg());
+            }
+            childCache.put(childId, context);
+        }
+        return context;
+    }
+
+    /**
+     * Validate the measurement with NutritionRiskCalculator and set the visit's risk level.
+     * When context is not null its previous visit feeds the trend factors and is then advanced.
+     */
+    private void evaluate(VisitModel visit, String dateOfBirth, String gender, ChildContext context) throws InvalidRowException {
+        if (NutritionRiskCalculator.calculateAgeInMonths(dateOfBirth, visit.getVisitDate()) < 0) {
+            throw new InvalidRowException("Visit date is before the child's date of birth");
+        }
+
+        Double muacPrevMm = null;
+        Double weightPrevKg = null;
+        if (context != null && context.previousDay != null && context.previousDay <= EpochDays.parse(visit.getVisitDate())) {
+            muacPrevMm = context.previousMuacMm;
+            weightPrevKg = context.previousWeightKg;
+        }
+
+        NutritionRiskCalculator.NutritionRiskResult result = NutritionRiskCalculator.evaluateFromVisitData(
+            dateOfBirth,
+            visit.getVisitDate(),
+            gender,
+            visit.getHeightCm(),
+            visit.getWeightKg(),
+            visit.getMuacMm(),
+            muacPrevMm,
+            weightPrevKg
+        );
+        if (result.hasValidZScore() && Math.abs(result.getZScore()) > IMPLAUSIBLE_ZSCORE) {
+            throw new InvalidRowException("Implausible weight-for-height (WHZ " + result.getZScoreDisplay() + ")");
+        }
+        visit.setRiskLevel(result.getRiskLevel());
+
+        if (context != null) {
+            context.remember(visit);
+        }
+    }
+
+    // ==================== WRITER (CALLING THREAD) ====================
+
+    private void writeBatch(List<ImportRow> batch, RejectLog rejects, ImportResult result) {
+        List<ChildModel> newChildren = new ArrayList<>();
+        List<VisitModel> visits = new ArrayList<>();
+        for (ImportRow row : batch) {
+            if (row.child != null) {
+                newChildren.add(row.child);
+            }
+            if (row.visit != null) {
+                visits.add(row.visit);
+            }
+        }
+
+        try {
+            // Children and their survey visits commit together; the DAO writes join this transaction
+            dbManager.write(conn -> {
+                if (!newChildren.isEmpty() && childDAO.addAll(newChildren).size() != newChildren.size()) {
+                    throw new SQLException("Inserting children failed");
+                }
+                for (ImportRow row : batch) {
+                    if (row.child != null && row.visit != null) {
+                        row.visit.setChildId(row.child.getId());
+                    }
+                }
+                if (!visits.isEmpty() && visitDAO.addAll(visits).size() != visits.size()) {
+                    throw new SQLException("Inserting visits failed");
+                }
+                return null;
+            });
+            result.imported.addAndGet(batch.size());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            for (ImportRow row : batch) {
+                rejects.reject(row.line, row.fields, "Database error: " + e.getMessage());
+            }
+        }
+    }
+
+    // ==================== FIELD PARSING ====================
+
+    private static String require(String value, String message) throws InvalidRowException {
+        if (value == null) {
+            throw new InvalidRowException(message);
+        }
+        return value;
+    }
+
+    private static String parseVisitDate(String value) throws InvalidRowException {
+        String date = normalizeDate(require(value, "Visit date is missing"));
+        if (date == null) {
+            throw new InvalidRowException("Visit date is not a valid date: " + value);
+        }
+        if (LocalDate.parse(date).isAfter(LocalDate.now())) {
+            throw new InvalidRowException("Visit date is in the future");
+        }
+        return date;
+    }
+
+    private static double parseNumber(String value, String label) throws InvalidRowException {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(label + " is not a number: " + value);
+        }
+    }
+
+    private static double parseMeasurement(String value, String label, double min, double max) throws InvalidRowException {
+        double number = parseNumber(require(value, label + " is missing"), label);
+        if (number < min || number > max) {
+            throw new InvalidRowException(label + " out of range (" + min + "-" + max + "): " + value);
+        }
+        return number;
+    }
+
+    // MUAC is optional; a blank value is stored as 0 like an unmeasured visit
+    private static int parseMuacMm(String value) throws InvalidRowException {
+        if (value == null) {
+            return 0;
+        }
+        return (int) Math.round(parseMeasurement(value, "MUAC (mm)", 50, 300));
+    }
+
+    private static int parseMuacCm(String value) throws InvalidRowException {
+        if (value == null) {
+            return 0;
+        }
+        return (int) Math.round(parseMeasurement(value, "MUAC (cm)", 5, 30) * 10);
+    }
+
+    private static String parseGender(String value) throws InvalidRowException {
+        if (value == null) {
+            return null;
+        }
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "1": case "m": case "male": case "boy":
+                return "Male";
+            case "2": case "f": case "female": case "girl":
+                return "Female";
+            case "other":
+                return "Other";
+            default:
+                throw new InvalidRowException("Unknown sex/gender: " + value);
+        }
+    }
+
+    /**
+     * Normalise "yyyy-MM-dd", "dd/MM/yyyy" or "dd-MM-yyyy" (optionally followed by a time) to
+     * "yyyy-MM-dd", or null if the value is not a valid date.
+     */
+    static String normalizeDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        String date = value.trim();
+        int space = date.indexOf(' ');
+        if (space > 0) {
+            date = date.substring(0, space);
+        }
+        if (date.length() == 10 && (date.charAt(2) == '/' || date.charAt(2) == '-')) {
+            date = date.substring(6, 10) + "-" + date.substring(3, 5) + "-" + date.substring(0, 2);
+        }
+        Integer epochDay = EpochDays.parse(date);
+        return epochDay != null ? EpochDays.format(epochDay) : null;
+    }
+
+    // ==================== SUPPORT TYPES ====================
+
+    /**
+     * Running and final import counts. Updated from both the parser and the importing thread.
+     */
+    public static class ImportResult {
+        private final Layout layout;
+        private final AtomicLong rowsRead = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+
+        ImportResult(Layout layout) {
+            this.layout = layout;
+        }
+
+        public Layout getLayout() { return layout; }
+        public long getRowsRead() { return rowsRead.get(); }
+        public long getImported() { return imported.get(); }
+        public long getRejected() { return rejected.get(); }
+    }
+
+    private static class ImportRow {
+        final long line;
+        final String[] fields;
+        final ChildModel child;
+        final VisitModel visit;
+
+        ImportRow(long line, String[] fields, ChildModel child, VisitModel visit) {
+            this.line = line;
+            this.fields = fields;
+            this.child = child;
+            this.visit = visit;
+        }
+    }
+
+    // What visit validation needs to know about an existing child
+    private static class ChildContext {
+        final String dateOfBirth;
+        final String gender;
+        Integer previousDay;
+        Double previousMuacMm;
+        Double previousWeightKg;
+
+        ChildContext(String dateOfBirth, String gender) {
+            this.dateOfBirth = dateOfBirth;
+            this.gender = gender;
+        }
+
+        void remember(VisitModel visit) {
+            remember(EpochDays.parse(visit.getVisitDate()), visit.getMuacMm(), visit.getWeightKg());
+        }
+
+        void remember(Integer day, int muacMm, double weightKg) {
+            if (day == null || (previousDay != null && day < previousDay)) {
+                return;
+            }
+            previousDay = day;
+            previousMuacMm = muacMm > 0 ? (double) muacMm : null;
+            previousWeightKg = weightKg > 0 ? weightKg : null;
+        }
+    }
+
+    private static class InvalidRowException extends Exception {
+        InvalidRowException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Header lookup by normalised column name (lower case letters and digits only),
+     * so "Weight (kg)", "weight_kg" and "WEIGHTKG" all match "weightkg".
+     */
+    private static class Columns {
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Columns(String[] header) {
+            for (int i = 0; i < header.length; i++) {
+                index.putIfAbsent(normalize(header[i]), i);
+            }
+        }
+
+        private static String normalize(String name) {
+            StringBuilder sb = new StringBuilder(name.length());
+            for (char c : name.toLowerCase(Locale.ROOT).toCharArray()) {
+                if (Character.isLetterOrDigit(c)) {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+
+        boolean has(String name) {
+            return index.containsKey(name);
+        }
+
+        /**
+         * First non-blank value among the given column names, trimmed, or null.
+         */
+        String get(String[] fields, String... names) {
+            for (String name : names) {
+                Integer i = index.get(name);
+                if (i != null && i < fields.length && !fields[i].isBlank()) {
+                    return fields[i].trim();
+                }
+            }
+            return null;
+        }
+
+        Layout detectLayout() throws IOException {
+            if (has("dov")) {
+                return Layout.WHO_ANTHRO;
+            }
+            if (has("childid") && (has("visitdate") || has("date"))) {
+                return Layout.VISITS;
+            }
+            if (has("fullname") || has("name")) {
+                return Layout.CHILDREN;
+            }
+            throw new IOException("Unrecognised CSV header: expected a children, visits or WHO Anthro layout");
+        }
+    }
+
+    /**
+     * Writes rejected rows as CSV: the source line number, the original fields and the reason.
+     */
+    private static class RejectLog {
+        private final PrintWriter writer;
+        private final ImportResult result;
+
+        RejectLog(PrintWriter writer, String[] header, ImportResult result) {
+            this.writer = writer;
+            this.result = result;
+            writer.println("Line," + joinCsv(header) + ",Rejection Reason");
+        }
+
+        synchronized void reject(long line, String[] fields, String reason) {
+            writer.println(line + "," + joinCsv(fields) + "," + ExportService.escapeCsv(reason));
+            result.rejected.incrementAndGet();
+        }
+
+        private static String joinCsv(String[] fields) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    sb.append(',');
+                }
+                sb.append(ExportService.escapeCsv(fields[i]));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Minimal streaming RFC 4180 reader: quoted fields, doubled quotes and line breaks inside quotes.
+     */
+    private static class CsvReader {
+        private final BufferedReader in;
+        private final StringBuilder field = new StringBuilder();
+        private long lineNumber;
+        private long recordLine;
+
+        CsvReader(BufferedReader in) {
+            this.in = in;
+        }
+
+        // 1-based line on which the last returned record started
+        long getRecordLine() {
+            return recordLine;
+        }
+
+        String[] next() throws IOException {
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean inQuotes = false;
+            boolean any = false;
+            recordLine = lineNumber + 1;
+
+            while (true) {
+                int c = in.read();
+                if (c == -1) {
+                    if (!any) {
+                        return null;
+                    }
+                    fields.add(field.toString());
+                    lineNumber++;
+                    return fields.toArray(new String[0]);
+                }
+                any = true;
+                if (inQuotes) {
+                    if (c == '"') {
+                        in.mark(1);
+                        int nextChar = in.read();
+                        if (nextChar == '"') {
+                            field.append('"');
+                        } else {
+                            inQuotes = false;
+                            if (nextChar != -1) {
+                                in.reset();
+                            }
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n') {
+                    fields.add(field.toString());
+                    lineNumber++;
+                    return fields.toArray(new String[0]);
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.nutrimap.service;
+
+import com.example.nutrimap.dao.MaintenanceDAO;
+import com.example.nutrimap.model.DatabaseStats;
+
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background database maintenance, one pass every PASS_INTERVAL_MINUTES:
+ * <ol>
+ *   <li>archive soft-deleted visits (and, if a retention period is set, live visits older
+ *       than it), ARCHIVE_BATCH_SIZE rows per transaction until none are left;</li>
+ *   <li>give free pages back with incremental vacuum once there are enough of them; the
+ *       first time, a full VACUUM switches an older file to incremental auto-vacuum;</li>
+ *   <li>ANALYZE after a large archival run or every ANALYZE_INTERVAL_HOURS.</li>
+ * </ol>
+ *
+ * Age-based archival is off by default: nothing in the app reads visits_archive, so an
+ * archived live visit disappears from every view, search and export, and a child whose
+ * visits are all archived loses its status. -Dnutrimap.archive.retentionDays=N (e.g. 1826
+ * for five years) turns it on; the default 0 archives tombstones only.
+ */
+public class MaintenanceService {
+    private static final long FIRST_PASS_DELAY_MINUTES = 2;
+    private static final long PASS_INTERVAL_MINUTES = 30;
+    private static final long ANALYZE_INTERVAL_HOURS = 6;
+    private static final int ARCHIVE_BATCH_SIZE = 500;
+    // 1 MB of free 4 KB pages before vacuuming is worth a transaction
+    private static final long VACUUM_MIN_FREE_PAGES = 256;
+    private static final int VACUUM_STEP_PAGES = 2000;
+    private static final long RETENTION_DAYS = Long.getLong("nutrimap.archive.retentionDays", 0);
+
+    private static MaintenanceService instance;
+
+    private final MaintenanceDAO maintenanceDAO;
+    private ScheduledExecutorService scheduler;
+    private volatile long lastAnalyzeMillis;
+    private volatile boolean incrementalVacuumChecked;
+
+    private MaintenanceService() {
+        this.maintenanceDAO = new MaintenanceDAO();
+    }
+
+    public static synchronized MaintenanceService getInstance() {
+        if (instance == null) {
+            instance = new MaintenanceService();
+        }
+        return instance;
+    }
+
+    /**
+     * Schedule the maintenance passes on a daemon thread. Calling it again has no effect.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nutrimap-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::runPass, FIRST_PASS_DELAY_MINUTES, PASS_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stop scheduling passes; a pass already running finishes its current batch.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Run one maintenance pass on the calling thread.
+     */
+    public void runPass() {
+        long start = System.currentTimeMillis();
+        long cutoffDay = RETENTION_DAYS > 0 ? LocalDate.now().toEpochDay() - RETENTION_DAYS : Long.MIN_VALUE;
+
+        int archived = 0;
+        int moved;
+        do {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            moved = maintenanceDAO.archiveVisits(cutoffDay, ARCHIVE_BATCH_SIZE);
+            archived += moved;
+        } while (moved == ARCHIVE_BATCH_SIZE);
+
+        long released = 0;
+        DatabaseStats stats = maintenanceDAO.getPageStats();
+        if (stats.getFreelistCount() >= VACUUM_MIN_FREE_PAGES) {
+            // Once per run; the full VACUUM also releases every free page, and is skipped when
+            // the file is already incremental
+            if (!incrementalVacuumChecked) {
+                incrementalVacuumChecked = true;
+                if (maintenanceDAO.enableIncrementalVacuum()) {
+                    released = stats.getFreelistCount();
+                }
+            }
+            if (released == 0) {
+                long step;
+                do {
+                    step = maintenanceDAO.incrementalVacuum(VACUUM_STEP_PAGES);
+                    released += step;
+                } while (step == VACUUM_STEP_PAGES && !Thread.currentThread().isInterrupted());
+                maintenanceDAO.checkpoint();
+            }
+        }
+
+        boolean analyzeDue = System.currentTimeMillis() - lastAnalyzeMillis >= TimeUnit.HOURS.toMillis(ANALYZE_INTERVAL_HOURS);
+        if (analyzeDue || archived >= ARCHIVE_BATCH_SIZE) {
+            maintenanceDAO.analyze();
+            lastAnalyzeMillis = System.currentTimeMillis();
+        }
+
+        if (archived > 0 || released > 0) {
+            System.out.println("Maintenance: archived " + archived + " visits, released " + released +
+                " pages in " + (System.currentTimeMillis() - start) + " ms");
+        }
+    }
+
+    /**
+     * Current size, fragmentation and visit counts. Reads every page of the file, so call
+     * it off the FX thread.
+     */
+    public DatabaseStats getStats() {
+        return maintenanceDAO.getStats();
+    }
+}
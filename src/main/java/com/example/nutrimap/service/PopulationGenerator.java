@@ -0,0 +1,464 @@
+package com.example.nutrimap.service;
+
+import com.example.nutrimap.dao.ChildDAO;
+import com.example.nutrimap.dao.DatabaseManager;
+import com.example.nutrimap.dao.MaintenanceDAO;
+import com.example.nutrimap.dao.VisitDAO;
+import com.example.nutrimap.model.BranchModel;
+import com.example.nutrimap.model.ChildModel;
+import com.example.nutrimap.model.DistrictModel;
+import com.example.nutrimap.model.DivisionModel;
+import com.example.nutrimap.model.UnionModel;
+import com.example.nutrimap.model.UpazilaModel;
+import com.example.nutrimap.model.VisitModel;
+import com.example.nutrimap.util.NutritionRiskCalculator;
+import com.example.nutrimap.util.WhoGrowthStandards;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates a synthetic but plausible population of children and visits for load testing.
+ *
+ * Children are spread evenly over the unions of the bundled gazetteer (no network access), with
+ * ages 0-59 months and a branch from their district. Each child gets a run of visits 1-3 months
+ * apart. Height follows a WHO length/height-for-age median curve shifted by a per-child stunting
+ * offset. Weight is derived from the WHO weight-for-height LMS tables for a WHZ trajectory
+ * ending in the child's class: SAM (WHZ < -3), MAM (-3 to -2) or normal, drawn with the
+ * configured prevalences. MUAC tracks WHZ. Visit risk levels come from NutritionRiskCalculator,
+ * as in the visit form.
+ *
+ * Children and their visits are written CHUNK_SIZE children per writer transaction, while the
+ * next chunk is generated in parallel. The same seed gives the same population.
+ *
+ * Run: mvn compile exec:java -Dexec.mainClass=com.example.nutrimap.service.PopulationGenerator
+ *      -Dexec.args="[children] [samPrevalence] [mamPrevalence] [seed]" -Dnutrimap.db=load.db
+ */
+public class PopulationGenerator {
+
+    /**
+     * Receives running totals after every committed chunk.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(GenerationResult progress);
+    }
+
+    // Children (and their visits) per writer transaction
+    private static final int CHUNK_SIZE = 2000;
+    private static final int MAX_AGE_DAYS = 60 * 30;
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    // WHO median length (0-24 months) and height (24-60 months) in cm at the ages in AGE_KNOTS
+    private static final double[] AGE_KNOTS = { 0, 3, 6, 9, 12, 18, 24, 36, 48, 60 };
+    private static final double[] BOYS_MEDIAN_HEIGHT = { 49.9, 61.4, 67.6, 72.0, 75.7, 82.3, 87.1, 96.1, 103.3, 110.0 };
+    private static final double[] GIRLS_MEDIAN_HEIGHT = { 49.1, 59.8, 65.7, 70.1, 74.0, 80.7, 85.7, 95.1, 102.7, 109.4 };
+    // Coefficient of variation of height-for-age, about one SD
+    private static final double HEIGHT_CV = 0.037;
+
+    private static final String[] BOY_NAMES = { "Rahim", "Karim", "Hasan", "Arif", "Sakib", "Tanvir", "Imran", "Nayeem",
+            "Rafi", "Sabbir", "Fahim", "Rakib", "Jahid", "Mehedi", "Shakil", "Tamim", "Ayan", "Rayhan", "Siam", "Tahsin" };
+    private static final String[] GIRL_NAMES = { "Fatima", "Ayesha", "Nusrat", "Sadia", "Tania", "Sumaiya", "Mim", "Jannat",
+            "Lamia", "Riya", "Tasnim", "Nadia", "Farhana", "Sharmin", "Maliha", "Anika", "Samira", "Tahmina", "Rupa", "Mitu" };
+    private static final String[] FAMILY_NAMES = { "Ahmed", "Hossain", "Islam", "Rahman", "Uddin", "Akter", "Khatun", "Miah",
+            "Sarkar", "Chowdhury", "Das", "Roy", "Begum", "Sheikh", "Mondal", "Biswas", "Haque", "Alam", "Khan", "Sultana" };
+    private static final String[] NOTES = { "Routine growth monitoring", "Mild fever last week",
+            "Advised exclusive breastfeeding", "Counselled on complementary feeding", "Diarrhoea in the past two weeks",
+            "Referred to OTP for treatment", "No oedema", "Vitamin A given", "Deworming done", "Follow-up in one month" };
+
+    private final DatabaseManager dbManager = DatabaseManager.getInstance();
+    private final ChildDAO childDAO = new ChildDAO();
+    private final VisitDAO visitDAO = new VisitDAO();
+
+    private final long seed;
+    private double samPrevalence = 0.03;
+    private double mamPrevalence = 0.08;
+    private int maxVisitsPerChild = 6;
+    private List<Location> locations;
+
+    public PopulationGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Share of children whose latest visit shows severe acute malnutrition (default 3%).
+     */
+    public void setSamPrevalence(double samPrevalence) {
+        this.samPrevalence = samPrevalence;
+    }
+
+    /**
+     * Share of children whose latest visit shows moderate acute malnutrition (default 8%).
+     */
+    public void setMamPrevalence(double mamPrevalence) {
+        this.mamPrevalence = mamPrevalence;
+    }
+
+    /**
+     * Upper bound on visits per child (default 6); each child gets at least one.
+     */
+    public void setMaxVisitsPerChild(int maxVisitsPerChild) {
+        this.maxVisitsPerChild = Math.max(1, maxVisitsPerChild);
+    }
+
+    /**
+     * Generate and insert the given number of children with their visits. Call it from a
+     * background thread, never the FX thread.
+     *
+     * @return the final counts; chunks committed before a failure stay committed
+     */
+    public GenerationResult generate(int children, ProgressListener listener) throws SQLException {
+        if (samPrevalence < 0 || mamPrevalence < 0 || samPrevalence + mamPrevalence > 1) {
+            throw new IllegalArgumentException("SAM and MAM prevalences must be between 0 and 1 together");
+        }
+        if (locations == null) {
+            locations = loadLocations();
+            if (locations.isEmpty()) {
+                throw new IllegalStateException("The bundled gazetteer has no unions");
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDate today = LocalDate.now();
+        GenerationResult result = new GenerationResult();
+        long start = System.nanoTime();
+
+        // One chunk is written while the next is generated
+        ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nutrimap-population-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Future<?> pending = null;
+            for (int done = 0; done < children; done += CHUNK_SIZE) {
+                Chunk chunk = generateChunk(random, Math.min(CHUNK_SIZE, children - done), today);
+                await(pending);
+                pending = writer.submit(() -> {
+                    writeChunk(chunk);
+                    result.add(chunk, System.nanoTime() - start);
+                    if (listener != null) {
+                        listener.onProgress(result);
+                    }
+                    return null;
+                });
+            }
+            await(pending);
+        } finally {
+            writer.shutdown();
+        }
+
+        // Fresh planner statistics for the new table sizes
+        new MaintenanceDAO().analyze();
+        return result;
+    }
+
+    private static void await(Future<?> pending) throws SQLException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while generating the population", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    // Children and their visits commit together; the DAO writes join this transaction
+    private void writeChunk(Chunk chunk) throws SQLException {
+        dbManager.write(conn -> {
+            if (childDAO.addAll(chunk.children).size() != chunk.children.size()) {
+                throw new SQLException("Inserting children failed");
+            }
+            for (int i = 0; i < chunk.visits.size(); i++) {
+                chunk.visits.get(i).setChildId(chunk.children.get(chunk.visitChild[i]).getId());
+            }
+            if (visitDAO.addAll(chunk.visits).size() != chunk.visits.size()) {
+                throw new SQLException("Inserting visits failed");
+            }
+            return null;
+        });
+    }
+
+    // ==================== GENERATION ====================
+
+    private Chunk generateChunk(SplittableRandom random, int count, LocalDate today) {
+        Chunk chunk = new Chunk(count);
+        List<Integer> visitChild = new ArrayList<>(count * maxVisitsPerChild);
+        for (int i = 0; i < count; i++) {
+            boolean male = random.nextBoolean();
+            LocalDate birth = today.minusDays(random.nextInt(MAX_AGE_DAYS));
+            ChildModel child = newChild(random, male, birth);
+
+            // Latest-visit class, then a WHZ trajectory that ends in it
+            double draw = random.nextDouble();
+            double finalZ;
+            double drift;
+            if (draw < samPrevalence) {
+                finalZ = uniform(random, -4.2, -3.05);
+                drift = uniform(random, 0.1, 0.4);
+                chunk.sam++;
+            } else if (draw < samPrevalence + mamPrevalence) {
+                finalZ = uniform(random, -2.95, -2.05);
+                drift = uniform(random, 0.05, 0.3);
+                chunk.mam++;
+            } else {
+                finalZ = Math.max(-1.95, Math.min(3.0, -0.4 + 0.8 * random.nextGaussian()));
+                drift = 0.15 * random.nextGaussian();
+            }
+            // Stunting offset in height-for-age SDs, fixed for the child
+            double haz = Math.max(-4, Math.min(3, -1.2 + random.nextGaussian()));
+
+            List<LocalDate> dates = visitDates(random, birth, today);
+            String sex = male ? "M" : "F";
+            Double prevMuac = null;
+            Double prevWeight = null;
+            for (int v = 0; v < dates.size(); v++) {
+                LocalDate date = dates.get(v);
+                double ageMonths = (date.toEpochDay() - birth.toEpochDay()) / 30.4375;
+                double z = finalZ + drift * (dates.size() - 1 - v) + 0.15 * random.nextGaussian();
+
+                double height = medianHeight(male, ageMonths) * (1 + HEIGHT_CV * haz) + 0.3 * random.nextGaussian();
+                height = round1(Math.max(45.0, Math.min(120.0, height)));
+                double weight = round1(weightForZ(sex, height, z));
+                int muac = (int) Math.round(140 + 9 * z + 4 * random.nextGaussian() - Math.max(0, 6 - ageMonths) * 2);
+                muac = Math.max(85, Math.min(200, muac));
+
+                VisitModel visit = new VisitModel();
+                visit.setVisitDate(date.format(DATE_FORMATTER));
+                visit.setHeightCm(height);
+                visit.setWeightKg(weight);
+                visit.setMuacMm(muac);
+                visit.setNotes(random.nextInt(10) < 4 ? NOTES[random.nextInt(NOTES.length)] : null);
+                visit.setRiskLevel(NutritionRiskCalculator.evaluateFromVisitData(child.getDateOfBirth(),
+                        visit.getVisitDate(), child.getGender(), height, weight, muac, prevMuac, prevWeight).getRiskLevel());
+                chunk.visits.add(visit);
+                visitChild.add(i);
+
+                prevMuac = (double) muac;
+                prevWeight = weight;
+            }
+            child.setLastVisit(dates.get(dates.size() - 1).format(DATE_FORMATTER));
+            chunk.children.add(child);
+        }
+        chunk.visitChild = visitChild.stream().mapToInt(Integer::intValue).toArray();
+        return chunk;
+    }
+
+    private ChildModel newChild(SplittableRandom random, boolean male, LocalDate birth) {
+        String family = pick(random, FAMILY_NAMES);
+        ChildModel child = new ChildModel();
+        child.setFullName(pick(random, male ? BOY_NAMES : GIRL_NAMES) + " " + family);
+        child.setFathersName(pick(random, BOY_NAMES) + " " + family);
+        child.setMothersName(pick(random, GIRL_NAMES) + " " + pick(random, FAMILY_NAMES));
+        child.setContactNumber("01" + (3 + random.nextInt(7)) + String.format("%08d", random.nextInt(100_000_000)));
+        child.setGender(male ? "Male" : "Female");
+        child.setDateOfBirth(birth.format(DATE_FORMATTER));
+
+        Location location = locations.get(random.nextInt(locations.size()));
+        child.setDivision(location.division);
+        child.setDistrict(location.district);
+        child.setUpazilla(location.upazila);
+        child.setUnionName(location.union);
+        if (!location.branches.isEmpty()) {
+            BranchModel branch = location.branches.get(random.nextInt(location.branches.size()));
+            child.setBranchId(branch.getId());
+            child.setBranchName(branch.getName());
+        }
+        return child;
+    }
+
+    // Enrolled at a random age, then seen every one to three months until today
+    private List<LocalDate> visitDates(SplittableRandom random, LocalDate birth, LocalDate today) {
+        int ageDays = (int) (today.toEpochDay() - birth.toEpochDay());
+        LocalDate date = birth.plusDays(random.nextInt(ageDays + 1));
+        int visits = 1 + random.nextInt(maxVisitsPerChild);
+        List<LocalDate> dates = new ArrayList<>(visits);
+        dates.add(date);
+        while (dates.size() < visits) {
+            date = date.plusDays(30 + random.nextInt(61));
+            if (date.isAfter(today)) {
+                break;
+            }
+            dates.add(date);
+        }
+        return dates;
+    }
+
+    private static double medianHeight(boolean male, double ageMonths) {
+        double[] medians = male ? BOYS_MEDIAN_HEIGHT : GIRLS_MEDIAN_HEIGHT;
+        int i = 1;
+        while (i < AGE_KNOTS.length - 1 && ageMonths > AGE_KNOTS[i]) {
+            i++;
+        }
+        double t = (ageMonths - AGE_KNOTS[i - 1]) / (AGE_KNOTS[i] - AGE_KNOTS[i - 1]);
+        return medians[i - 1] + Math.max(0, Math.min(1, t)) * (medians[i] - medians[i - 1]);
+    }
+
+    // Inverse of the LMS z-score: X = M (1 + L S z)^(1/L)
+    private static double weightForZ(String sex, double heightCm, double z) {
+        WhoGrowthStandards.LmsParams lms = WhoGrowthStandards.getWeightForHeightLms(sex, heightCm);
+        if (lms.L == 0) {
+            return lms.M * Math.exp(lms.S * z);
+        }
+        return lms.M * Math.pow(1 + lms.L * lms.S * z, 1 / lms.L);
+    }
+
+    private static double uniform(SplittableRandom random, double from, double to) {
+        return from + random.nextDouble() * (to - from);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    // ==================== GAZETTEER ====================
+
+    private static List<Location> loadLocations() {
+        GitHubJsonDataService data = GitHubJsonDataService.getInstance();
+        data.useBundledData();
+
+        Map<String, String> divisions = new HashMap<>();
+        for (DivisionModel division : data.getDivisions()) {
+            divisions.put(division.getId(), division.getName());
+        }
+        Map<String, DistrictModel> districts = new HashMap<>();
+        for (DistrictModel district : data.getDistricts()) {
+            districts.put(district.getId(), district);
+        }
+        Map<String, UpazilaModel> upazilas = new HashMap<>();
+        for (UpazilaModel upazila : data.getUpazilas()) {
+            upazilas.put(upazila.getId(), upazila);
+        }
+        Map<String, List<BranchModel>> branchesByDistrict = new HashMap<>();
+        for (BranchModel branch : data.getBranches()) {
+            if (branch.getDistrict() != null) {
+                branchesByDistrict.computeIfAbsent(branch.getDistrict().toLowerCase(), key -> new ArrayList<>()).add(branch);
+            }
+        }
+
+        List<Location> locations = new ArrayList<>();
+        for (UnionModel union : data.getUnions()) {
+            UpazilaModel upazila = upazilas.get(union.getUpazilaId());
+            DistrictModel district = upazila != null ? districts.get(upazila.getDistrictId()) : null;
+            String division = district != null ? divisions.get(district.getDivisionId()) : null;
+            if (division == null) {
+                continue;
+            }
+            locations.add(new Location(division, district.getName(), upazila.getName(), union.getName(),
+                    branchesByDistrict.getOrDefault(district.getName().toLowerCase(), List.of())));
+        }
+        return locations;
+    }
+
+    private static class Location {
+        final String division;
+        final String district;
+        final String upazila;
+        final String union;
+        final List<BranchModel> branches;
+
+        Location(String division, String district, String upazila, String union, List<BranchModel> branches) {
+            this.division = division;
+            this.district = district;
+            this.upazila = upazila;
+            this.union = union;
+            this.branches = branches;
+        }
+    }
+
+    private static class Chunk {
+        final List<ChildModel> children;
+        final List<VisitModel> visits;
+        // Index into children of each visit's child
+        int[] visitChild;
+        int sam;
+        int mam;
+
+        Chunk(int size) {
+            children = new ArrayList<>(size);
+            visits = new ArrayList<>(size * 3);
+        }
+    }
+
+    /**
+     * Running totals of a generation run.
+     */
+    public static class GenerationResult {
+        private volatile long children;
+        private volatile long visits;
+        private volatile long sam;
+        private volatile long mam;
+        private volatile long elapsedNanos;
+
+        // Called on the writer thread only
+        void add(Chunk chunk, long elapsed) {
+            children += chunk.children.size();
+            visits += chunk.visits.size();
+            sam += chunk.sam;
+            mam += chunk.mam;
+            elapsedNanos = elapsed;
+        }
+
+        public long getChildren() { return children; }
+
+        public long getVisits() { return visits; }
+
+        public long getSam() { return sam; }
+
+        public long getMam() { return mam; }
+
+        public double getElapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        public double getChildrenPerSecond() {
+            return elapsedNanos > 0 ? children / getElapsedSeconds() : 0;
+        }
+    }
+
+    // ==================== CLI ====================
+
+    public static void main(String[] args) throws Exception {
+        int children = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        PopulationGenerator generator = new PopulationGenerator(args.length > 3 ? Long.parseLong(args[3]) : 42L);
+        if (args.length > 1) {
+            generator.setSamPrevalence(Double.parseDouble(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setMamPrevalence(Double.parseDouble(args[2]));
+        }
+
+        DatabaseManager db = DatabaseManager.getInstance();
+        try {
+            GenerationResult result = generator.generate(children, progress -> System.out.printf(
+                    "%,d children, %,d visits (%.0f children/s)%n",
+                    progress.getChildren(), progress.getVisits(), progress.getChildrenPerSecond()));
+            System.out.printf("Generated %,d children (%,d SAM, %,d MAM) and %,d visits in %.1f s%n",
+                    result.getChildren(), result.getSam(), result.getMam(), result.getVisits(), result.getElapsedSeconds());
+        } finally {
+            db.closeConnection();
+        }
+    }
+}
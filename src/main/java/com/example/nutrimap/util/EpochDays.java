@@ -0,0 +1,106 @@
+package com.example.nutrimap.util;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Conversion between "yyyy-MM-dd" date strings and epoch-day integers
+ * (days since 1970-01-01), the form dates are stored in the *_day columns.
+ */
+public final class EpochDays {
+    // Epoch day of a missing or unparsable date
+    public static final int NO_DAY = Integer.MIN_VALUE;
+
+    // Today and the instant it ends, replaced together at midnight
+    private static volatile Today today = new Today();
+
+    private EpochDays() {}
+
+    /**
+     * Today's epoch day in the default time zone. Only the first call after midnight
+     * creates objects; every other call reads the cached day.
+     */
+    public static int today() {
+        Today current = today;
+        if (System.currentTimeMillis() >= current.endMillis) {
+            current = new Today();
+            today = current;
+        }
+        return current.day;
+    }
+
+    /**
+     * The proleptic month (year * 12 + month - 1) shifted left by 5 bits, plus the day of
+     * month, of an epoch day. Computed arithmetically (civil-from-days), without a LocalDate.
+     */
+    static int monthAndDay(int epochDay) {
+        // Days since 0000-03-01, so the leap day is the last day of the year
+        int zeroDay = epochDay + 719468;
+        int era = Math.floorDiv(zeroDay, 146097);
+        int dayOfEra = zeroDay - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        // Months counted from March
+        int marchMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * marchMonth + 2) / 5 + 1;
+        int month = marchMonth < 10 ? marchMonth + 3 : marchMonth - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (year * 12 + month - 1) << 5 | day;
+    }
+
+    /**
+     * Parse a "yyyy-MM-dd" date to an epoch day. As strict as LocalDate.parse: exactly ten
+     * characters, '-' separators and a day that exists in its month.
+     *
+     * @param date date string
+     * @return epoch day, or null if the string is missing or not a valid date
+     */
+    public static Integer parse(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 0 || day < 0) {
+            return null;
+        }
+        try {
+            // Rejects month 0 or 13, day 0 and days past the end of the month
+            return (int) LocalDate.of(year, month, day).toEpochDay();
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Format an epoch day as "yyyy-MM-dd".
+     */
+    public static String format(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    private static final class Today {
+        final int day;
+        final long endMillis;
+
+        Today() {
+            LocalDate date = LocalDate.now();
+            this.day = (int) date.toEpochDay();
+            this.endMillis = date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+    }
+
+    private static int digits(String s, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.nutrimap.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One WHO weight-for-height LMS reference curve (one sex) as primitive arrays indexed by the
+ * height step: row i holds L, M and S at first + i * step cm. Lookups interpolate linearly
+ * between the two neighbouring rows and compute the z-score in local variables, without
+ * boxing or allocating.
+ *
+ * Binary form (big-endian): a file starts with MAGIC, VERSION as a short and the table count
+ * as a short; each table is its indicator code (WEIGHT_FOR_HEIGHT) and sex as bytes, first
+ * and step as doubles, the row count as an int, then all L, all M and all S values as doubles.
+ */
+final class LmsTable {
+    static final int MAGIC = 0x574C4D53; // "WLMS"
+    static final int VERSION = 1;
+    // WHO Anthro indicator code for weight-for-height, the only table the resource holds
+    static final int WEIGHT_FOR_HEIGHT = 2;
+
+    private final int sex;
+    private final double first;
+    private final double step;
+    private final double last;
+    private final double[] l;
+    private final double[] m;
+    private final double[] s;
+
+    LmsTable(int sex, double first, double step, double[] l, double[] m, double[] s) {
+        if (l.length != m.length || m.length != s.length || m.length < 2) {
+            throw new IllegalArgumentException("L, M and S need the same number of rows, at least two");
+        }
+        if (!(step > 0)) {
+            throw new IllegalArgumentException("Step must be positive: " + step);
+        }
+        this.sex = sex;
+        this.first = first;
+        this.step = step;
+        this.last = first + (m.length - 1) * step;
+        this.l = l;
+        this.m = m;
+        this.s = s;
+    }
+
+    int getSex() { return sex; }
+
+    double getFirst() { return first; }
+
+    double getStep() { return step; }
+
+    double getLast() { return last; }
+
+    int getRows() { return m.length; }
+
+    boolean covers(double x) {
+        return x >= first && x <= last;
+    }
+
+    /**
+     * z-score of a weight at height x, or NaN when x is outside the table or the weight is
+     * not positive. Beyond +/-3 it uses the WHO restricted application of the LMS method.
+     */
+    double zScore(double x, double measurement) {
+        if (!(x >= first && x <= last) || !(measurement > 0)) {
+            return Double.NaN;
+        }
+        double pos = (x - first) / step;
+        int i = Math.min((int) pos, m.length - 2);
+        double t = pos - i;
+        double lv = l[i] + t * (l[i + 1] - l[i]);
+        double mv = m[i] + t * (m[i + 1] - m[i]);
+        double sv = s[i] + t * (s[i + 1] - s[i]);
+        double z = zScore(measurement, lv, mv, sv);
+        if (z > 3 || z < -3) {
+            // Beyond 3 SD the distance between the 2 and 3 SD curves is used as the unit
+            double sd3 = measurementAt(3 * Math.signum(z), lv, mv, sv);
+            double sd2 = measurementAt(2 * Math.signum(z), lv, mv, sv);
+            z = z > 0 ? 3 + (measurement - sd3) / (sd3 - sd2) : -3 + (measurement - sd3) / (sd2 - sd3);
+        }
+        return z;
+    }
+
+    /**
+     * Interpolated LMS parameters at x, or null outside the table. Allocates; the hot path
+     * is {@link #zScore(double, double)}.
+     */
+    WhoGrowthStandards.LmsParams lmsAt(double x) {
+        if (!(x >= first && x <= last)) {
+            return null;
+        }
+        double pos = (x - first) / step;
+        int i = Math.min((int) pos, m.length - 2);
+        double t = pos - i;
+        return new WhoGrowthStandards.LmsParams(l[i] + t * (l[i + 1] - l[i]), m[i] + t * (m[i + 1] - m[i]),
+                s[i] + t * (s[i + 1] - s[i]));
+    }
+
+    // z = ((X/M)^L - 1) / (L S), or ln(X/M) / S when L = 0
+    static double zScore(double measurement, double l, double m, double s) {
+        if (l == 0) {
+            return Math.log(measurement / m) / s;
+        }
+        return (Math.pow(measurement / m, l) - 1) / (l * s);
+    }
+
+    // Inverse: X = M (1 + L S z)^(1/L), or M exp(S z) when L = 0
+    static double measurementAt(double z, double l, double m, double s) {
+        if (l == 0) {
+            return m * Math.exp(s * z);
+        }
+        return m * Math.pow(1 + l * s * z, 1 / l);
+    }
+
+    /**
+     * Write tables in the binary form read by {@link #readAll(byte[])}.
+     */
+    static void writeAll(List<LmsTable> tables, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(stream);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(tables.size());
+        for (LmsTable table : tables) {
+            table.write(out);
+        }
+        out.flush();
+    }
+
+    static List<LmsTable> readAll(byte[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (data.length < 8 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a WHO LMS table file");
+        }
+        int version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported WHO LMS table version " + version);
+        }
+        int count = buffer.getShort();
+        List<LmsTable> tables = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tables.add(read(buffer));
+        }
+        return tables;
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeByte(WEIGHT_FOR_HEIGHT);
+        out.writeByte(sex);
+        out.writeDouble(first);
+        out.writeDouble(step);
+        out.writeInt(m.length);
+        for (double[] column : new double[][] { l, m, s }) {
+            for (double value : column) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    /**
+     * Read one table at the buffer's position, bulk-copying the three columns.
+     */
+    private static LmsTable read(ByteBuffer buffer) throws IOException {
+        int code = buffer.get();
+        if (code != WEIGHT_FOR_HEIGHT) {
+            throw new IOException("Unsupported growth indicator code " + code);
+        }
+        int sex = buffer.get();
+        double first = buffer.getDouble();
+        double step = buffer.getDouble();
+        int rows = buffer.getInt();
+        if (rows < 2 || rows > buffer.remaining() / (3 * Double.BYTES)) {
+            throw new IOException("Bad row count " + rows + " for sex " + sex);
+        }
+        double[][] columns = new double[3][rows];
+        for (double[] column : columns) {
+            buffer.asDoubleBuffer().get(column);
+            buffer.position(buffer.position() + rows * Double.BYTES);
+        }
+        return new LmsTable(sex, first, step, columns[0], columns[1], columns[2]);
+    }
+}
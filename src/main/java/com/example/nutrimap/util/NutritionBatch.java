@@ -0,0 +1,117 @@
+package com.example.nutrimap.util;
+
+import java.util.stream.IntStream;
+
+/**
+ * Nutrition classification for whole cohorts held as parallel primitive arrays (one element
+ * per child), for reports and recalculation jobs. Gives the same results as
+ * NutritionRiskCalculator.classifyNutritionLevelFromRawData one child at a time:
+ * severe if MUAC &lt; 11.5 cm or the wasting z-score &lt; -3, moderate if MUAC &lt; 12.5 cm or
+ * z &lt; -2, else normal; a missing MUAC (0) or z-score (NaN) simply does not count.
+ *
+ * The work runs in blocks of BLOCK children: z-scores first (table lookup and pow, no
+ * allocation), then the thresholds as a branch-free loop over primitive arrays that C2 can
+ * compile to SIMD compares.
+ */
+public final class NutritionBatch {
+    public static final byte LEVEL_NORMAL = 0;
+    public static final byte LEVEL_MODERATE = 1;
+    public static final byte LEVEL_SEVERE = 2;
+
+    // Children per block; keeps a block's inputs and outputs in L1/L2
+    private static final int BLOCK = 1024;
+    private static final int MUAC_SEVERE_MM = 115;
+    private static final int MUAC_MODERATE_MM = 125;
+
+    private NutritionBatch() {
+    }
+
+    /**
+     * Classify every child: fills zOut with wasting z-scores (as
+     * WhoGrowthStandards.weightForHeightZ; NaN if unavailable) and levelOut with LEVEL_ codes.
+     *
+     * @param sex WhoGrowthStandards.MALE or FEMALE
+     * @param ageMonths age in completed months
+     * @param heightCm height in cm
+     * @param weightKg weight in kg
+     * @param muacMm MUAC in mm, 0 if not measured
+     */
+    public static void evaluate(byte[] sex, int[] ageMonths, double[] heightCm, double[] weightKg, int[] muacMm,
+                                double[] zOut, byte[] levelOut) {
+        evaluate(sex, ageMonths, heightCm, weightKg, muacMm, zOut, levelOut, 0, checkLengths(sex, ageMonths,
+                heightCm, weightKg, muacMm, zOut, levelOut));
+    }
+
+    /**
+     * As {@link #evaluate(byte[], int[], double[], double[], int[], double[], byte[])} for
+     * elements from (inclusive) to to (exclusive).
+     */
+    public static void evaluate(byte[] sex, int[] ageMonths, double[] heightCm, double[] weightKg, int[] muacMm,
+                                double[] zOut, byte[] levelOut, int from, int to) {
+        for (int start = from; start < to; start += BLOCK) {
+            int end = Math.min(to, start + BLOCK);
+            wastingZScores(sex, ageMonths, heightCm, weightKg, zOut, start, end);
+            classify(zOut, muacMm, levelOut, start, end);
+        }
+    }
+
+    /**
+     * {@link #evaluate(byte[], int[], double[], double[], int[], double[], byte[])} split over
+     * the common fork-join pool, for cohorts of hundreds of thousands of children.
+     */
+    public static void evaluateParallel(byte[] sex, int[] ageMonths, double[] heightCm, double[] weightKg,
+                                        int[] muacMm, double[] zOut, byte[] levelOut) {
+        int n = checkLengths(sex, ageMonths, heightCm, weightKg, muacMm, zOut, levelOut);
+        int chunk = 16 * BLOCK;
+        IntStream.range(0, (n + chunk - 1) / chunk).parallel().forEach(c -> evaluate(sex, ageMonths, heightCm,
+                weightKg, muacMm, zOut, levelOut, c * chunk, Math.min(n, (c + 1) * chunk)));
+    }
+
+    /**
+     * Wasting z-scores for elements from (inclusive) to to (exclusive).
+     */
+    public static void wastingZScores(byte[] sex, int[] ageMonths, double[] heightCm, double[] weightKg,
+                                      double[] zOut, int from, int to) {
+        // Looked up once per call rather than per child
+        LmsTable male = WhoGrowthStandards.weightForHeightTable(WhoGrowthStandards.MALE);
+        LmsTable female = WhoGrowthStandards.weightForHeightTable(WhoGrowthStandards.FEMALE);
+        for (int i = from; i < to; i++) {
+            int s = sex[i];
+            LmsTable table = s == WhoGrowthStandards.MALE ? male : s == WhoGrowthStandards.FEMALE ? female : null;
+            zOut[i] = table != null ? table.zScore(heightCm[i], weightKg[i]) : Double.NaN;
+        }
+    }
+
+    /**
+     * Nutrition level codes from z-scores and MUAC for elements from (inclusive) to
+     * to (exclusive).
+     */
+    public static void classify(double[] z, int[] muacMm, byte[] levelOut, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int muac = muacMm[i];
+            double zi = z[i];
+            // Each condition adds one step; NaN compares false, MUAC 0 is excluded
+            int byMuac = (muac > 0 & muac < MUAC_MODERATE_MM ? 1 : 0) + (muac > 0 & muac < MUAC_SEVERE_MM ? 1 : 0);
+            int byZ = (zi < NutritionRiskCalculator.ZSCORE_MODERATE_THRESHOLD ? 1 : 0)
+                    + (zi < NutritionRiskCalculator.ZSCORE_SEVERE_THRESHOLD ? 1 : 0);
+            levelOut[i] = (byte) Math.max(byMuac, byZ);
+        }
+    }
+
+    /**
+     * The NutritionRiskCalculator.NUTRITION_ string for a LEVEL_ code (the NutritionLevel code).
+     */
+    public static String levelName(byte level) {
+        return NutritionLevel.fromCode(level).getValue();
+    }
+
+    private static int checkLengths(byte[] sex, int[] ageMonths, double[] heightCm, double[] weightKg, int[] muacMm,
+                                    double[] zOut, byte[] levelOut) {
+        int n = sex.length;
+        if (ageMonths.length != n || heightCm.length != n || weightKg.length != n || muacMm.length != n
+                || zOut.length != n || levelOut.length != n) {
+            throw new IllegalArgumentException("All input and output arrays must have the same length");
+        }
+        return n;
+    }
+}
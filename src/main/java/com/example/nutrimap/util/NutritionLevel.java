@@ -0,0 +1,51 @@
+package com.example.nutrimap.util;
+
+/**
+ * Nutrition level of a visit, with the string stored in the database and the label and CSS
+ * class the views show. The codes are the NutritionBatch LEVEL_ codes and increase with
+ * severity.
+ */
+public enum NutritionLevel {
+    NORMAL(0, NutritionRiskCalculator.NUTRITION_NORMAL, "Normal", "status-normal"),
+    MODERATE(1, NutritionRiskCalculator.NUTRITION_MODERATE, "Moderate Malnutrition", "status-moderate"),
+    SEVERE(2, NutritionRiskCalculator.NUTRITION_SEVERE, "Severe Malnutrition", "status-severe");
+
+    private static final NutritionLevel[] BY_CODE = values();
+
+    private final int code;
+    private final String value;
+    private final String display;
+    private final String styleClass;
+
+    NutritionLevel(int code, String value, String display, String styleClass) {
+        this.code = code;
+        this.value = value;
+        this.display = display;
+        this.styleClass = styleClass;
+    }
+
+    public int getCode() { return code; }
+
+    /** The string stored in the database, e.g. "moderate malnutrition". */
+    public String getValue() { return value; }
+
+    public String getDisplay() { return display; }
+
+    public String getStyleClass() { return styleClass; }
+
+    public static NutritionLevel fromCode(int code) {
+        return BY_CODE[code];
+    }
+
+    /**
+     * The level stored as value, or null if it is null or not a known level.
+     */
+    public static NutritionLevel fromValue(String value) {
+        for (NutritionLevel level : BY_CODE) {
+            if (level.value.equals(value)) {
+                return level;
+            }
+        }
+        return null;
+    }
+}
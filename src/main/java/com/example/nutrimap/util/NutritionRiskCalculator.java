@@ -1,8 +1,6 @@
 package com.example.nutrimap.util;
 
 import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
 
 /**
  * Utility class for calculating nutrition levels and risk levels.
@@ -51,39 +49,22 @@ public class NutritionRiskCalculator {
      * @return Nutrition level: "severe malnutrition", "moderate malnutrition", or "normal"
      */
     public static String classifyNutritionLevel(double muacCm, Double zScore) {
-        // Check for invalid MUAC
-        if (muacCm <= 0) {
-            // If MUAC is invalid, rely solely on z-score if available
-            if (zScore != null) {
-                if (zScore < ZSCORE_SEVERE_THRESHOLD) {
-                    return NUTRITION_SEVERE;
-                } else if (zScore < ZSCORE_MODERATE_THRESHOLD) {
-                    return NUTRITION_MODERATE;
-                } else {
-                    return NUTRITION_NORMAL;
-                }
-            }
-            return NUTRITION_NORMAL; // Default if no valid data
-        }
-        
-        // Check severe malnutrition conditions
-        if (muacCm < MUAC_SEVERE_THRESHOLD_CM) {
-            return NUTRITION_SEVERE;
-        }
-        if (zScore != null && zScore < ZSCORE_SEVERE_THRESHOLD) {
-            return NUTRITION_SEVERE;
-        }
-        
-        // Check moderate malnutrition conditions
-        if (muacCm < MUAC_MODERATE_THRESHOLD_CM) {
-            return NUTRITION_MODERATE;
+        return classifyNutrition(muacCm, zScore != null ? zScore : Double.NaN).getValue();
+    }
+
+    /**
+     * Primitive form of {@link #classifyNutritionLevel(double, Double)}: a MUAC of 0 or
+     * less and a NaN z-score count as not available.
+     */
+    public static NutritionLevel classifyNutrition(double muacCm, double zScore) {
+        boolean hasMuac = muacCm > 0;
+        if ((hasMuac && muacCm < MUAC_SEVERE_THRESHOLD_CM) || zScore < ZSCORE_SEVERE_THRESHOLD) {
+            return NutritionLevel.SEVERE;
         }
-        if (zScore != null && zScore < ZSCORE_MODERATE_THRESHOLD) {
-            return NUTRITION_MODERATE;
+        if ((hasMuac && muacCm < MUAC_MODERATE_THRESHOLD_CM) || zScore < ZSCORE_MODERATE_THRESHOLD) {
+            return NutritionLevel.MODERATE;
         }
-        
-        // Normal
-        return NUTRITION_NORMAL;
+        return NutritionLevel.NORMAL;
     }
     
     /**
@@ -125,56 +106,94 @@ public class NutritionRiskCalculator {
             double weightKg,
             Double weightPrevKg) {
         
-        int riskPoints = 0;
+        NutritionLevel level = NutritionLevel.fromValue(nutritionLevel);
+        int code = riskCode(level != null ? level : NutritionLevel.NORMAL, ageMonths, muacCm,
+                muacPrevCm != null ? muacPrevCm : Double.NaN, weightKg,
+                weightPrevKg != null ? weightPrevKg : Double.NaN);
+        return RiskCode.riskLevel(code).getValue();
+    }
+
+    /**
+     * Primitive form of {@link #classifyRiskLevel}: B2 points for an already classified
+     * nutrition level, packed with the factors that added them (see RiskCode). A previous
+     * value that is NaN or 0 or less counts as not available.
+     */
+    public static int riskCode(
+            NutritionLevel nutrition,
+            int ageMonths,
+            double muacCm,
+            double muacPrevCm,
+            double weightKg,
+            double weightPrevKg) {
         
-        // Base points from nutrition level
-        if (NUTRITION_SEVERE.equals(nutritionLevel)) {
-            riskPoints += 3;
-        } else if (NUTRITION_MODERATE.equals(nutritionLevel)) {
-            riskPoints += 2;
-        } else {
-            riskPoints += 1;
-        }
+        // Base points from nutrition level: severe=3, moderate=2, normal=1
+        int riskPoints = nutrition.getCode() + 1;
+        int flags = 0;
         
         // Age factor: children under 24 months are at higher risk
         if (ageMonths < 24) {
             riskPoints += 1;
+            flags |= RiskCode.FLAG_UNDER_24_MONTHS;
         }
         
-        // Borderline MUAC checks
-        // Borderline severe: 11.5 <= muacCm < 11.9
-        if (muacCm >= 11.5 && muacCm < 11.9) {
-            riskPoints += 1;
-        }
-        // Borderline moderate: 12.5 <= muacCm < 12.9
-        if (muacCm >= 12.5 && muacCm < 12.9) {
+        // Borderline MUAC: 11.5 <= muacCm < 11.9 or 12.5 <= muacCm < 12.9
+        if ((muacCm >= 11.5 && muacCm < 11.9) || (muacCm >= 12.5 && muacCm < 12.9)) {
             riskPoints += 1;
+            flags |= RiskCode.FLAG_BORDERLINE_MUAC;
         }
         
         // Trend factor: MUAC decline >= 0.5 cm (only if previous data exists)
-        if (muacPrevCm != null && muacPrevCm > 0) {
-            double muacDrop = muacPrevCm - muacCm;
-            if (muacDrop >= 0.5) {
-                riskPoints += 1;
-            }
+        if (muacPrevCm > 0 && muacPrevCm - muacCm >= 0.5) {
+            riskPoints += 1;
+            flags |= RiskCode.FLAG_MUAC_DECLINE;
         }
         
         // Trend factor: Weight loss >= 5% (only if previous data exists)
-        if (weightPrevKg != null && weightPrevKg > 0) {
-            double weightLossPercent = (weightPrevKg - weightKg) / weightPrevKg;
-            if (weightLossPercent >= 0.05) {
-                riskPoints += 1;
-            }
+        if (weightPrevKg > 0 && (weightPrevKg - weightKg) / weightPrevKg >= 0.05) {
+            riskPoints += 1;
+            flags |= RiskCode.FLAG_WEIGHT_LOSS;
         }
         
-        // Final risk level mapping
-        if (riskPoints >= 4) {
-            return RISK_HIGH;
-        } else if (riskPoints >= 2) {
-            return RISK_MEDIUM;
-        } else {
-            return RISK_LOW;
+        return RiskCode.pack(nutrition, riskPoints, flags);
+    }
+    
+    /**
+     * Allocation-free complete evaluation: the nutrition level from MUAC and the WHO wasting
+     * z-score, then the B2 risk level, packed into one int (read it with RiskCode). Previous
+     * values are NaN when there is no previous visit.
+     * 
+     * @param ageMonths child's age in months
+     * @param sex WhoGrowthStandards.MALE or FEMALE (see WhoGrowthStandards.sexCode)
+     * @param heightCm current height in centimeters
+     * @param weightKg current weight in kilograms
+     * @param muacCm current MUAC in centimeters, 0 if not measured
+     * @param muacPrevCm previous MUAC in centimeters, or NaN
+     * @param weightPrevKg previous weight in kilograms, or NaN
+     * @return packed RiskCode
+     */
+    public static int evaluate(
+            int ageMonths,
+            int sex,
+            double heightCm,
+            double weightKg,
+            double muacCm,
+            double muacPrevCm,
+            double weightPrevKg) {
+        double zScore = WhoGrowthStandards.weightForHeightZ(sex, heightCm, weightKg);
+        return evaluate(ageMonths, zScore, weightKg, muacCm, muacPrevCm, weightPrevKg);
+    }
+    
+    private static int evaluate(int ageMonths, double zScore, double weightKg, double muacCm,
+            double muacPrevCm, double weightPrevKg) {
+        NutritionLevel nutrition = classifyNutrition(muacCm, zScore);
+        int code = riskCode(nutrition, ageMonths, muacCm > 0 ? muacCm : 13.0, muacPrevCm, weightKg, weightPrevKg);
+        if (!Double.isNaN(zScore)) {
+            code |= RiskCode.FLAG_Z_SCORE;
+        }
+        if (!(muacCm > 0)) {
+            code |= RiskCode.FLAG_NO_MUAC;
         }
+        return code;
     }
     
     /**
@@ -184,18 +203,8 @@ public class NutritionRiskCalculator {
      * @return Age in months, or -1 if invalid
      */
     public static int calculateAgeInMonths(String dateOfBirth) {
-        if (dateOfBirth == null || dateOfBirth.isEmpty()) {
-            return -1;
-        }
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate dob = LocalDate.parse(dateOfBirth, formatter);
-            LocalDate now = LocalDate.now();
-            Period period = Period.between(dob, now);
-            return period.getYears() * 12 + period.getMonths();
-        } catch (Exception e) {
-            return -1;
-        }
+        Integer birthDay = EpochDays.parse(dateOfBirth);
+        return birthDay != null ? ageInMonths(birthDay, EpochDays.today()) : -1;
     }
     
     /**
@@ -210,11 +219,7 @@ public class NutritionRiskCalculator {
         if (birthDate == null || visitDate == null) {
             return -1;
         }
-        if (visitDate.isBefore(birthDate)) {
-            return -1;
-        }
-        Period period = Period.between(birthDate, visitDate);
-        return period.getYears() * 12 + period.getMonths();
+        return ageInMonths((int) birthDate.toEpochDay(), (int) visitDate.toEpochDay());
     }
     
     /**
@@ -225,18 +230,31 @@ public class NutritionRiskCalculator {
      * @return Age in months at the visit date, or -1 if invalid
      */
     public static int calculateAgeInMonths(String birthDateStr, String visitDateStr) {
-        if (birthDateStr == null || birthDateStr.isEmpty() || 
-            visitDateStr == null || visitDateStr.isEmpty()) {
+        Integer birthDay = EpochDays.parse(birthDateStr);
+        Integer visitDay = EpochDays.parse(visitDateStr);
+        if (birthDay == null || visitDay == null) {
             return -1;
         }
-        try {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            LocalDate birthDate = LocalDate.parse(birthDateStr, formatter);
-            LocalDate visitDate = LocalDate.parse(visitDateStr, formatter);
-            return calculateAgeInMonths(birthDate, visitDate);
-        } catch (Exception e) {
+        return ageInMonths(birthDay, visitDay);
+    }
+    
+    /**
+     * Age in completed months between two epoch days, the same as
+     * Period.between(birth, visit) in months but without creating any object.
+     * 
+     * @param birthEpochDay Child's date of birth as an epoch day
+     * @param visitEpochDay Date of the visit as an epoch day
+     * @return Age in months at the visit date, or -1 if the visit is before the birth or
+     *         either day is EpochDays.NO_DAY
+     */
+    public static int ageInMonths(int birthEpochDay, int visitEpochDay) {
+        if (visitEpochDay < birthEpochDay || birthEpochDay == EpochDays.NO_DAY) {
             return -1;
         }
+        int birth = EpochDays.monthAndDay(birthEpochDay);
+        int visit = EpochDays.monthAndDay(visitEpochDay);
+        // Month difference, less one while the day of month has not been reached
+        return (visit >> 5) - (birth >> 5) - (((visit & 31) - (birth & 31)) >>> 31);
     }
     
     /**
@@ -269,16 +287,8 @@ public class NutritionRiskCalculator {
         if (nutritionLevel == null) {
             return "N/A";
         }
-        switch (nutritionLevel) {
-            case NUTRITION_SEVERE:
-                return "Severe Malnutrition";
-            case NUTRITION_MODERATE:
-                return "Moderate Malnutrition";
-            case NUTRITION_NORMAL:
-                return "Normal";
-            default:
-                return nutritionLevel;
-        }
+        NutritionLevel level = NutritionLevel.fromValue(nutritionLevel);
+        return level != null ? level.getDisplay() : nutritionLevel;
     }
     
     /**
@@ -288,10 +298,7 @@ public class NutritionRiskCalculator {
      * @return Uppercase version for display
      */
     public static String getRiskLevelDisplay(String riskLevel) {
-        if (riskLevel == null) {
-            return "N/A";
-        }
-        return riskLevel.toUpperCase();
+        return RiskLevel.fromValue(riskLevel).getDisplay();
     }
     
     /**
@@ -301,19 +308,8 @@ public class NutritionRiskCalculator {
      * @return CSS class name for styling
      */
     public static String getNutritionStyleClass(String nutritionLevel) {
-        if (nutritionLevel == null) {
-            return "status-na";
-        }
-        switch (nutritionLevel) {
-            case NUTRITION_SEVERE:
-                return "status-severe";
-            case NUTRITION_MODERATE:
-                return "status-moderate";
-            case NUTRITION_NORMAL:
-                return "status-normal";
-            default:
-                return "status-na";
-        }
+        NutritionLevel level = NutritionLevel.fromValue(nutritionLevel);
+        return level != null ? level.getStyleClass() : "status-na";
     }
     
     /**
@@ -323,19 +319,7 @@ public class NutritionRiskCalculator {
      * @return CSS class name for styling
      */
     public static String getRiskStyleClass(String riskLevel) {
-        if (riskLevel == null) {
-            return "status-na";
-        }
-        switch (riskLevel.toLowerCase()) {
-            case "high":
-                return "status-high";
-            case "medium":
-                return "status-medium";
-            case "low":
-                return "status-low";
-            default:
-                return "status-na";
-        }
+        return RiskLevel.fromValue(riskLevel).getStyleClass();
     }
     
     /**
@@ -345,19 +329,7 @@ public class NutritionRiskCalculator {
      * @return A descriptive label
      */
     public static String getRiskDescription(String riskLevel) {
-        if (riskLevel == null) {
-            return "Not Available";
-        }
-        switch (riskLevel.toLowerCase()) {
-            case "high":
-                return "High Risk - Urgent intervention needed";
-            case "medium":
-                return "Medium Risk - Close monitoring required";
-            case "low":
-                return "Low Risk - Continue routine monitoring";
-            default:
-                return "Not Available";
-        }
+        return RiskLevel.fromValue(riskLevel).getDescription();
     }
     
     // ========== WHO Z-SCORE CALCULATION METHODS ==========
@@ -401,27 +373,9 @@ public class NutritionRiskCalculator {
             double weightKg,
             double muacCm) {
         
-        // Compute z-score using WHO Growth Standards
+        // MUAC-only classification if the z-score can't be computed
         double zScore = computeWhzZScore(ageMonths, sex, heightCm, weightKg);
-        
-        // If z-score is valid, use it with MUAC for classification
-        if (!Double.isNaN(zScore)) {
-            return classifyNutritionLevel(muacCm, zScore);
-        }
-        
-        // Fallback to MUAC-only classification if z-score couldn't be computed
-        if (muacCm > 0) {
-            if (muacCm < MUAC_SEVERE_THRESHOLD_CM) {
-                return NUTRITION_SEVERE;
-            } else if (muacCm < MUAC_MODERATE_THRESHOLD_CM) {
-                return NUTRITION_MODERATE;
-            } else {
-                return NUTRITION_NORMAL;
-            }
-        }
-        
-        // No valid data - default to normal
-        return NUTRITION_NORMAL;
+        return classifyNutrition(muacCm, zScore).getValue();
     }
     
     /**
@@ -483,33 +437,47 @@ public class NutritionRiskCalculator {
             Double muacPrevMm,
             Double weightPrevKg) {
         
+        Integer birthDay = EpochDays.parse(birthDateStr);
+        Integer visitDay = EpochDays.parse(visitDateStr);
+        return evaluateFromVisitData(birthDay != null ? birthDay : EpochDays.NO_DAY,
+                visitDay != null ? visitDay : EpochDays.NO_DAY, sex, heightCm, weightKg, muacMm, muacPrevMm, weightPrevKg);
+    }
+    
+    /**
+     * Complete evaluation from visit data with the dates as epoch days, e.g. the stored
+     * birth_day and visit_day columns; no date is parsed.
+     * 
+     * @param birthEpochDay Child's date of birth as an epoch day, or EpochDays.NO_DAY
+     * @param visitEpochDay Visit date as an epoch day, or EpochDays.NO_DAY
+     * @param sex "M" or "F" (or "Male"/"Female")
+     * @param heightCm Height in centimeters
+     * @param weightKg Weight in kilograms
+     * @param muacMm Current MUAC in MILLIMETERS
+     * @param muacPrevMm Previous MUAC in MILLIMETERS (nullable)
+     * @param weightPrevKg Previous weight in kilograms (nullable)
+     * @return NutritionRiskResult containing nutritionLevel, riskLevel, and zScore
+     */
+    public static NutritionRiskResult evaluateFromVisitData(
+            int birthEpochDay,
+            int visitEpochDay,
+            String sex,
+            double heightCm,
+            double weightKg,
+            double muacMm,
+            Double muacPrevMm,
+            Double weightPrevKg) {
+        
         // Calculate age at time of visit
-        int ageMonths = calculateAgeInMonths(birthDateStr, visitDateStr);
+        int ageMonths = ageInMonths(birthEpochDay, visitEpochDay);
         if (ageMonths < 0) {
             ageMonths = 36; // Default if dates invalid
         }
         
         // Convert MUAC from mm to cm
-        double muacCm = muacMmToCm(muacMm);
-        Double muacPrevCm = muacPrevMm != null ? muacMmToCm(muacPrevMm) : null;
-        
-        // Classify nutrition level
-        String nutritionLevel = classifyNutritionLevelFromRawData(ageMonths, sex, heightCm, weightKg, muacCm);
+        double muacPrevCm = muacPrevMm != null ? muacMmToCm(muacPrevMm) : Double.NaN;
         
-        // Classify risk level
-        String riskLevel = classifyRiskLevel(
-            nutritionLevel,
-            ageMonths,
-            muacCm > 0 ? muacCm : 13.0,
-            muacPrevCm,
-            weightKg,
-            weightPrevKg
-        );
-        
-        // Compute z-score for informational purposes
-        double zScore = computeWhzZScore(ageMonths, sex, heightCm, weightKg);
-        
-        return new NutritionRiskResult(nutritionLevel, riskLevel, zScore);
+        return evaluateFullAssessment(ageMonths, sex, heightCm, weightKg, muacMmToCm(muacMm),
+                muacPrevCm, weightPrevKg != null ? weightPrevKg : Double.NaN);
     }
     
     /**
@@ -537,20 +505,9 @@ public class NutritionRiskCalculator {
             Double muacPrevCm,
             Double weightPrevKg) {
         
-        // Step 1: Classify nutrition level from raw data
-        String nutritionLevel = classifyNutritionLevelFromRawData(
-            ageMonths, sex, heightCm, weightKg, muacCm
-        );
-        
-        // Step 2: Classify risk level using the B2 scoring system
-        return classifyRiskLevel(
-            nutritionLevel,
-            ageMonths,
-            muacCm > 0 ? muacCm : 13.0, // Default if MUAC not available
-            muacPrevCm,
-            weightKg,
-            weightPrevKg
-        );
+        int code = evaluate(ageMonths, WhoGrowthStandards.sexCode(sex), heightCm, weightKg, muacCm,
+                muacPrevCm != null ? muacPrevCm : Double.NaN, weightPrevKg != null ? weightPrevKg : Double.NaN);
+        return RiskCode.riskLevel(code).getValue();
     }
     
     /**
@@ -575,50 +532,51 @@ public class NutritionRiskCalculator {
             Double muacPrevCm,
             Double weightPrevKg) {
         
-        String nutritionLevel = classifyNutritionLevelFromRawData(
-            ageMonths, sex, heightCm, weightKg, muacCm
-        );
-        
-        String riskLevel = classifyRiskLevel(
-            nutritionLevel,
-            ageMonths,
-            muacCm > 0 ? muacCm : 13.0,
-            muacPrevCm,
-            weightKg,
-            weightPrevKg
-        );
-        
-        // Compute z-score for informational purposes
-        double zScore = computeWhzZScore(ageMonths, sex, heightCm, weightKg);
-        
-        return new NutritionRiskResult(nutritionLevel, riskLevel, zScore);
+        return evaluateFullAssessment(ageMonths, sex, heightCm, weightKg, muacCm,
+                muacPrevCm != null ? muacPrevCm : Double.NaN, weightPrevKg != null ? weightPrevKg : Double.NaN);
+    }
+    
+    private static NutritionRiskResult evaluateFullAssessment(int ageMonths, String sex, double heightCm,
+            double weightKg, double muacCm, double muacPrevCm, double weightPrevKg) {
+        // The z-score is kept on the result for informational purposes
+        double zScore = WhoGrowthStandards.weightForHeightZ(WhoGrowthStandards.sexCode(sex), heightCm, weightKg);
+        return new NutritionRiskResult(evaluate(ageMonths, zScore, weightKg, muacCm, muacPrevCm, weightPrevKg), zScore);
     }
     
     /**
-     * Result class containing nutrition level, risk level, and computed z-score.
+     * Result class containing the packed RiskCode and the computed z-score, with the nutrition
+     * and risk levels as strings for existing callers.
      */
     public static class NutritionRiskResult {
-        private final String nutritionLevel;
-        private final String riskLevel;
+        private final int code;
         private final double zScore;
         
+        public NutritionRiskResult(int code, double zScore) {
+            this.code = code;
+            this.zScore = zScore;
+        }
+        
         public NutritionRiskResult(String nutritionLevel, String riskLevel, double zScore) {
-            this.nutritionLevel = nutritionLevel;
-            this.riskLevel = riskLevel;
+            NutritionLevel level = NutritionLevel.fromValue(nutritionLevel);
+            this.code = RiskCode.pack(level != null ? level : NutritionLevel.NORMAL, RiskLevel.fromValue(riskLevel), 0, 0);
             this.zScore = zScore;
         }
         
-        public String getNutritionLevel() { return nutritionLevel; }
-        public String getRiskLevel() { return riskLevel; }
+        public int getCode() { return code; }
+        public NutritionLevel getNutrition() { return RiskCode.nutritionLevel(code); }
+        public RiskLevel getRisk() { return RiskCode.riskLevel(code); }
+        public int getRiskPoints() { return RiskCode.riskPoints(code); }
+        public String getNutritionLevel() { return getNutrition().getValue(); }
+        public String getRiskLevel() { return getRisk().getValue(); }
         public double getZScore() { return zScore; }
         public boolean hasValidZScore() { return !Double.isNaN(zScore); }
         
         public String getNutritionLevelDisplay() {
-            return NutritionRiskCalculator.getNutritionLevelDisplay(nutritionLevel);
+            return getNutrition().getDisplay();
         }
         
         public String getRiskLevelDisplay() {
-            return NutritionRiskCalculator.getRiskLevelDisplay(riskLevel);
+            return getRisk().getDisplay();
         }
         
         public String getZScoreDisplay() {
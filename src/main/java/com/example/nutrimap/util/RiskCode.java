@@ -0,0 +1,68 @@
+package com.example.nutrimap.util;
+
+/**
+ * A complete evaluation packed into one int, as returned by NutritionRiskCalculator.evaluate:
+ * <pre>
+ *   bits 0-1   nutrition level code (NutritionLevel)
+ *   bits 2-3   risk level code (RiskLevel)
+ *   bits 4-7   risk points (B2 scoring)
+ *   bits 8-13  FLAG_ bits: the factors that added points, and which inputs were usable
+ * </pre>
+ * Codes can be stored in int arrays and compared or counted without any object per child.
+ */
+public final class RiskCode {
+    /** The child is under 24 months (+1 point). */
+    public static final int FLAG_UNDER_24_MONTHS = 1 << 8;
+    /** MUAC is just above the severe or moderate cut-off (+1 point). */
+    public static final int FLAG_BORDERLINE_MUAC = 1 << 9;
+    /** MUAC dropped by 0.5 cm or more since the previous visit (+1 point). */
+    public static final int FLAG_MUAC_DECLINE = 1 << 10;
+    /** Weight dropped by 5% or more since the previous visit (+1 point). */
+    public static final int FLAG_WEIGHT_LOSS = 1 << 11;
+    /** A WHO wasting z-score could be computed and took part in the nutrition level. */
+    public static final int FLAG_Z_SCORE = 1 << 12;
+    /** MUAC was not measured; the nutrition level rests on the z-score alone. */
+    public static final int FLAG_NO_MUAC = 1 << 13;
+
+    private static final int NUTRITION_MASK = 0x3;
+    private static final int RISK_SHIFT = 2;
+    private static final int RISK_MASK = 0x3;
+    private static final int POINTS_SHIFT = 4;
+    private static final int POINTS_MASK = 0xF;
+
+    private RiskCode() {
+    }
+
+    static int pack(NutritionLevel nutrition, int points, int flags) {
+        return pack(nutrition, RiskLevel.fromPoints(points), points, flags);
+    }
+
+    static int pack(NutritionLevel nutrition, RiskLevel risk, int points, int flags) {
+        return nutrition.getCode() | risk.getCode() << RISK_SHIFT
+                | Math.min(points, POINTS_MASK) << POINTS_SHIFT | flags;
+    }
+
+    public static int nutritionCode(int code) {
+        return code & NUTRITION_MASK;
+    }
+
+    public static int riskCode(int code) {
+        return code >>> RISK_SHIFT & RISK_MASK;
+    }
+
+    public static int riskPoints(int code) {
+        return code >>> POINTS_SHIFT & POINTS_MASK;
+    }
+
+    public static boolean hasFlag(int code, int flag) {
+        return (code & flag) != 0;
+    }
+
+    public static NutritionLevel nutritionLevel(int code) {
+        return NutritionLevel.fromCode(nutritionCode(code));
+    }
+
+    public static RiskLevel riskLevel(int code) {
+        return RiskLevel.fromCode(riskCode(code));
+    }
+}
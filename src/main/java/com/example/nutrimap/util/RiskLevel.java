@@ -0,0 +1,64 @@
+package com.example.nutrimap.util;
+
+/**
+ * Risk level of a child or visit, with the string stored in the database and the label,
+ * CSS class and description the views show. NA stands for no evaluation (no visit yet).
+ */
+public enum RiskLevel {
+    NA(0, NutritionRiskCalculator.RISK_NA, "N/A", "status-na", "Not Available"),
+    LOW(1, NutritionRiskCalculator.RISK_LOW, "LOW", "status-low", "Low Risk - Continue routine monitoring"),
+    MEDIUM(2, NutritionRiskCalculator.RISK_MEDIUM, "MEDIUM", "status-medium", "Medium Risk - Close monitoring required"),
+    HIGH(3, NutritionRiskCalculator.RISK_HIGH, "HIGH", "status-high", "High Risk - Urgent intervention needed");
+
+    private static final RiskLevel[] BY_CODE = values();
+
+    private final int code;
+    private final String value;
+    private final String display;
+    private final String styleClass;
+    private final String description;
+
+    RiskLevel(int code, String value, String display, String styleClass, String description) {
+        this.code = code;
+        this.value = value;
+        this.display = display;
+        this.styleClass = styleClass;
+        this.description = description;
+    }
+
+    public int getCode() { return code; }
+
+    /** The string stored in the database, e.g. "medium". */
+    public String getValue() { return value; }
+
+    public String getDisplay() { return display; }
+
+    public String getStyleClass() { return styleClass; }
+
+    public String getDescription() { return description; }
+
+    public static RiskLevel fromCode(int code) {
+        return BY_CODE[code];
+    }
+
+    /**
+     * The level for a stored value, ignoring case; NA for null or anything unknown.
+     */
+    public static RiskLevel fromValue(String value) {
+        if (value != null) {
+            for (RiskLevel level : BY_CODE) {
+                if (level.value.equalsIgnoreCase(value)) {
+                    return level;
+                }
+            }
+        }
+        return NA;
+    }
+
+    /**
+     * B2 scoring: 4 or more points is high, 2-3 medium, 0-1 low.
+     */
+    public static RiskLevel fromPoints(int points) {
+        return points >= 4 ? HIGH : points >= 2 ? MEDIUM : LOW;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.nutrimap.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds the who-lms.bin resource read by WhoGrowthStandards from the WHO Anthro
+ * weight-for-height table (wfhanthro.txt from the igrowup package: sex, height, l, m, s,
+ * tab-separated with a header row; extra columns are ignored).
+ *
+ * Run: java -cp target/classes com.example.nutrimap.util.WhoTableConverter &lt;wfhanthro.txt&gt;
+ *      [output, default src/main/resources/com/example/nutrimap/util/who-lms.bin]
+ */
+public class WhoTableConverter {
+    private static final String DEFAULT_OUTPUT = "src/main/resources/com/example/nutrimap/util/who-lms.bin";
+    // Rows must be evenly spaced to within this share of a step
+    private static final double STEP_TOLERANCE = 0.01;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: WhoTableConverter <wfhanthro.txt> [output file]");
+            System.exit(2);
+        }
+        Path file = Paths.get(args[0]);
+        Path output = Paths.get(args.length > 1 ? args[1] : DEFAULT_OUTPUT);
+
+        List<LmsTable> tables = new ArrayList<>();
+        for (int sex = WhoGrowthStandards.MALE; sex <= WhoGrowthStandards.FEMALE; sex++) {
+            LmsTable table = readTable(file, sex);
+            tables.add(table);
+            System.out.printf("Weight-for-height sex %d: %d rows, %s-%s step %s%n", sex, table.getRows(),
+                    table.getFirst(), table.getLast(), table.getStep());
+        }
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+            LmsTable.writeAll(tables, out);
+        }
+        System.out.printf("Wrote %d tables to %s (%,d bytes)%n", tables.size(), output, Files.size(output));
+    }
+
+    private static LmsTable readTable(Path file, int sex) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            throw new IOException(file + " is empty");
+        }
+        String[] header = lines.get(0).trim().toLowerCase(Locale.ROOT).replace("\"", "").split("[\\t,; ]+");
+        int sexCol = column(header, "sex", file);
+        int xCol = column(header, "height", file);
+        int lCol = column(header, "l", file);
+        int mCol = column(header, "m", file);
+        int sCol = column(header, "s", file);
+
+        List<double[]> rows = new ArrayList<>();
+        for (int n = 1; n < lines.size(); n++) {
+            String line = lines.get(n).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] cells = line.replace("\"", "").split("[\\t,; ]+");
+            try {
+                if ((int) Double.parseDouble(cells[sexCol]) != sex) {
+                    continue;
+                }
+                rows.add(new double[] { Double.parseDouble(cells[xCol]), Double.parseDouble(cells[lCol]),
+                        Double.parseDouble(cells[mCol]), Double.parseDouble(cells[sCol]) });
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(file + " line " + (n + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        if (rows.size() < 2) {
+            throw new IOException(file + " has fewer than two rows for sex " + sex);
+        }
+        rows.sort(Comparator.comparingDouble(row -> row[0]));
+
+        double first = rows.get(0)[0];
+        double step = rows.get(1)[0] - first;
+        double[] l = new double[rows.size()];
+        double[] m = new double[rows.size()];
+        double[] s = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            double[] row = rows.get(i);
+            if (Math.abs(row[0] - (first + i * step)) > step * STEP_TOLERANCE) {
+                throw new IOException(file + ": rows for sex " + sex + " are not evenly spaced at " + row[0]);
+            }
+            l[i] = row[1];
+            m[i] = row[2];
+            s[i] = row[3];
+        }
+        // Spacing like 0.1 is not exact in binary; store the step the rows average to
+        step = (rows.get(rows.size() - 1)[0] - first) / (rows.size() - 1);
+        return new LmsTable(sex, first, step, l, m, s);
+    }
+
+    private static int column(String[] header, String name, Path file) throws IOException {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IOException(file + " has no " + name + " column");
+    }
+}
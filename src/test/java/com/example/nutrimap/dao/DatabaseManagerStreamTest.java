@@ -0,0 +1,74 @@
+package com.example.nutrimap.dao;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * DatabaseManager.stream called inside read() or write() uses that call's connection rather
+ * than borrowing another pooled reader.
+ */
+class DatabaseManagerStreamTest {
+    private static final String SELECT_EMAIL = "SELECT email FROM users WHERE email = ?";
+
+    @TempDir
+    static Path dir;
+
+    private static DatabaseManager db;
+
+    @BeforeAll
+    static void open() {
+        System.setProperty("nutrimap.db", dir.resolve("nutrimap.db").toString());
+        db = DatabaseManager.getInstance();
+    }
+
+    @AfterAll
+    static void close() {
+        db.closeConnection();
+    }
+
+    @Test
+    void streamInsideWriteSeesUncommittedRows() throws Exception {
+        List<String> emails = db.write(conn -> {
+            PreparedStatement insert = conn.prepare("INSERT INTO users (name, email, password) VALUES (?, ?, ?)");
+            insert.setString(1, "Stream Test");
+            insert.setString(2, "stream@test.local");
+            insert.setString(3, "x");
+            insert.executeUpdate();
+            try (Stream<String> rows = db.stream(SELECT_EMAIL, rs -> rs.getString(1), "stream@test.local")) {
+                return rows.collect(Collectors.toList());
+            }
+        });
+        assertEquals(List.of("stream@test.local"), emails);
+    }
+
+    @Test
+    void streamsInsideReadDoNotExhaustThePool() {
+        // More open cursors than the pool has readers; each borrowing one would time out
+        int streams = 8;
+        int opened = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> db.read(conn -> {
+            List<Stream<Integer>> open = new ArrayList<>();
+            try {
+                for (int i = 0; i < streams; i++) {
+                    open.add(db.stream("SELECT 1", rs -> rs.getInt(1)));
+                }
+                return open.size();
+            } finally {
+                open.forEach(Stream::close);
+            }
+        }));
+        assertEquals(streams, opened);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.nutrimap.dao;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query plan regression check for the DAO SQL.
+ *
+ * Builds a throwaway database with synthetic children and visits, runs ANALYZE, then
+ * EXPLAIN QUERY PLANs every static final "*_SQL" constant in the DAOs (QueryMetrics.DAO_CLASSES).
+ * Fails when a statement sorts through a temp B-tree without being marked {@link BoundedSort},
+ * or has a SCAN step without being marked {@link FullScan}. A SCAN is accepted only as an FTS5 MATCH or in a statement bounded by a
+ * trailing LIMIT; a scan through a partial index still reads every row the index holds.
+ *
+ * Runs with mvn test; -Dnutrimap.planCheck.children and -Dnutrimap.planCheck.visitsPerChild
+ * change the data size (default 20000 and 5).
+ */
+class QueryPlanCheckerTest {
+    private static final int CHILDREN = Integer.getInteger("nutrimap.planCheck.children", 20000);
+    private static final int VISITS_PER_CHILD = Integer.getInteger("nutrimap.planCheck.visitsPerChild", 5);
+
+    @TempDir
+    static Path dir;
+
+    private static DatabaseManager db;
+
+    @BeforeAll
+    static void populate() throws SQLException {
+        System.setProperty("nutrimap.db", dir.resolve("nutrimap-plan-check.db").toString());
+        db = DatabaseManager.getInstance();
+        populate(db, CHILDREN, VISITS_PER_CHILD);
+    }
+
+    @AfterAll
+    static void close() {
+        db.closeConnection();
+    }
+
+    @Test
+    void everyDaoQueryUsesAnIndex() throws Exception {
+        List<String> failures = checkPlans(db);
+        assertTrue(failures.isEmpty(), failures.size() + " statement(s) with a bad query plan: " + failures);
+    }
+
+    private static void populate(DatabaseManager db, int children, int visitsPerChild) throws SQLException {
+        db.write(conn -> {
+            try (Statement stmt = conn.getConnection().createStatement()) {
+                stmt.execute(
+                    "WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + children + ") " +
+                    "INSERT INTO children (full_name, gender, branch_id, branch_name, date_of_birth, birth_day) " +
+                    "SELECT 'Child ' || i, CASE i % 2 WHEN 0 THEN 'Male' ELSE 'Female' END, " +
+                    "'B' || (i % 500), 'Branch ' || (i % 500), date('2020-01-01', '+' || (i % 1500) || ' days'), " +
+                    "CAST(julianday('2020-01-01') - 2440587.5 AS INTEGER) + i % 1500 FROM n"
+                );
+                stmt.execute(
+                    "WITH RECURSIVE n(i) AS (SELECT 1 UNION ALL SELECT i + 1 FROM n WHERE i < " + (children * visitsPerChild) + ") " +
+                    "INSERT INTO visits (child_id, visit_date, visit_day, weight_kg, height_cm, muac_mm, deleted) " +
+                    "SELECT (SELECT MIN(id) FROM children) + i % " + children + ", date('2024-01-01', '+' || (i % 700) || ' days'), " +
+                    "CAST(julianday('2024-01-01') - 2440587.5 AS INTEGER) + i % 700, " +
+                    "8 + i % 10, 70 + i % 30, 110 + i % 30, CASE WHEN i % 25 = 0 THEN 1 ELSE 0 END FROM n"
+                );
+                stmt.execute("ANALYZE");
+            }
+            return null;
+        });
+    }
+
+    private static List<String> checkPlans(DatabaseManager db) throws Exception {
+        List<String> failures = new ArrayList<>();
+        for (Class<?> dao : QueryMetrics.DAO_CLASSES) {
+            for (Field field : dao.getDeclaredFields()) {
+                int mod = field.getModifiers();
+                if (!Modifier.isStatic(mod) || !Modifier.isFinal(mod)
+                        || field.getType() != String.class || !field.getName().endsWith("_SQL")) {
+                    continue;
+                }
+                field.setAccessible(true);
+                String sql = (String) field.get(null);
+                boolean scanAllowed = field.isAnnotationPresent(FullScan.class) || isLimited(sql);
+                boolean sortAllowed = field.isAnnotationPresent(BoundedSort.class) && isLimited(sql);
+                List<String> plan = explain(db, sql);
+
+                List<String> problems = new ArrayList<>();
+                for (String step : plan) {
+                    if (step.contains("USE TEMP B-TREE") && !sortAllowed) {
+                        problems.add(step);
+                    } else if (step.startsWith("SCAN ") && !scanAllowed && !isFullTextMatch(step)) {
+                        problems.add(step);
+                    }
+                }
+
+                String name = dao.getSimpleName() + "." + field.getName();
+                if (problems.isEmpty()) {
+                    System.out.println("OK    " + name + "  " + plan);
+                } else {
+                    System.out.println("FAIL  " + name + "  " + problems);
+                    failures.add(name + " " + problems);
+                }
+            }
+        }
+        return failures;
+    }
+
+    // The whole statement ends in LIMIT ? (OFFSET ?), so a scan in index order stops early
+    private static boolean isLimited(String sql) {
+        return sql.matches("(?is).*\\bLIMIT\\s+\\?(\\s+OFFSET\\s+\\?)?\\s*");
+    }
+
+    // FTS5 reports a MATCH lookup as a virtual table "scan" whose index string contains M
+    private static boolean isFullTextMatch(String step) {
+        return step.matches("SCAN .* VIRTUAL TABLE INDEX \\d+:.*M.*");
+    }
+
+    private static List<String> explain(DatabaseManager db, String sql) throws SQLException {
+        return db.write(conn -> {
+            List<String> steps = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.getConnection().prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+                int params = pstmt.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= params; i++) {
+                    pstmt.setInt(i, 1);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        steps.add(rs.getString("detail"));
+                    }
+                }
+            }
+            return steps;
+        });
+    }
+}
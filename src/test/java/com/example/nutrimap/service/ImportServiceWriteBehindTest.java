@@ -0,0 +1,97 @@
+package com.example.nutrimap.service;
+
+import com.example.nutrimap.dao.ChildDAO;
+import com.example.nutrimap.dao.DatabaseManager;
+import com.example.nutrimap.dao.VisitDAO;
+import com.example.nutrimap.model.ChildModel;
+import com.example.nutrimap.model.VisitModel;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An import in write-behind mode while a journaled visit is still pending: VisitDAO.addAll
+ * syncs the journal from inside the import's write transaction, which must not wait for the
+ * flusher.
+ */
+class ImportServiceWriteBehindTest {
+    @TempDir
+    static Path dir;
+
+    @BeforeAll
+    static void configure() {
+        System.setProperty("nutrimap.db", dir.resolve("nutrimap.db").toString());
+        System.setProperty("nutrimap.visits.writeBehind", "true");
+        // Keep the journaled visit pending until the import syncs it
+        System.setProperty("nutrimap.visits.flushIntervalMs", "600000");
+    }
+
+    @AfterAll
+    static void close() {
+        DatabaseManager.getInstance().closeConnection();
+    }
+
+    @Test
+    void importCommitsPendingJournalFirst() throws Exception {
+        ChildModel child = child("Imported Child");
+        // The parser syncs the imported child's own visits, so the pending one belongs to another
+        ChildModel other = child("Journaled Child");
+
+        VisitDAO visitDAO = new VisitDAO();
+        VisitModel journaled = visit(other.getId(), "2024-03-01");
+        visitDAO.addVisit(journaled);
+        assertEquals(0, journaled.getVisitId(), "visit should still be pending in the journal");
+
+        File csv = dir.resolve("visits.csv").toFile();
+        Files.writeString(csv.toPath(), "Child ID,Visit Date,Weight (kg),Height (cm),MUAC (mm),Notes\n" +
+                child.getId() + ",2024-04-01,10.2,80.5,134,imported\n", StandardCharsets.UTF_8);
+
+        ImportService.ImportResult result = assertTimeoutPreemptively(Duration.ofSeconds(30),
+                () -> new ImportService().importCsv(csv, ImportService.defaultRejectedFile(csv), null));
+
+        assertEquals(1, result.getImported());
+        assertTrue(journaled.getVisitId() > 0, "journaled visit should have been inserted");
+        assertEquals(1, visitDAO.getByChildId(other.getId()).size());
+        List<VisitModel> visits = visitDAO.getByChildId(child.getId());
+        assertEquals(1, visits.size());
+        int importedId = visits.get(0).getVisitId();
+        assertTrue(journaled.getVisitId() < importedId, "journaled visits are inserted before the batch");
+
+        // Later writes still go through
+        VisitModel direct = visit(child.getId(), "2024-05-01");
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> visitDAO.addAll(List.of(direct)));
+        assertTrue(direct.getVisitId() > importedId);
+    }
+
+    private static ChildModel child(String name) {
+        ChildModel child = new ChildModel();
+        child.setFullName(name);
+        child.setGender("Male");
+        child.setDateOfBirth("2023-01-15");
+        new ChildDAO().addChild(child);
+        assertTrue(child.getId() > 0);
+        return child;
+    }
+
+    private static VisitModel visit(int childId, String date) {
+        VisitModel visit = new VisitModel();
+        visit.setChildId(childId);
+        visit.setVisitDate(date);
+        visit.setWeightKg(10.0);
+        visit.setHeightCm(80.0);
+        visit.setMuacMm(135);
+        return visit;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.nutrimap.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EpochDaysTest {
+    @Test
+    void parsesValidDates() {
+        for (String date : new String[] { "1970-01-01", "2024-02-29", "2023-12-31", "0001-01-01", "9999-12-31" }) {
+            assertEquals(Integer.valueOf((int) LocalDate.parse(date).toEpochDay()), EpochDays.parse(date), date);
+        }
+    }
+
+    @Test
+    void rejectsWhatLocalDateParseRejects() {
+        for (String date : new String[] { null, "", "2024-03-01garbage", "2024-03-01 10:15:00", "2024-03-1",
+                "2024/03/01", "2024-03/01", "20240301xx", "2024-13-01", "2024-00-10", "2024-02-30",
+                "2023-02-29", "2024-04-31", "2024-03-00", "2024-0a-01", "+024-03-01" }) {
+            assertNull(EpochDays.parse(date), String.valueOf(date));
+        }
+    }
+
+    @Test
+    void formatRoundTrips() {
+        assertEquals("2024-02-29", EpochDays.format(EpochDays.parse("2024-02-29")));
+    }
+}